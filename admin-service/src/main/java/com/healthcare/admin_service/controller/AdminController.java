@@ -34,8 +34,9 @@ public class AdminController {
             }
     )
     @PostMapping
-    public ResponseEntity<Admin> createAdmin(@RequestBody Admin admin) {
-        return ResponseEntity.ok(service.createAdmin(admin));
+    public ResponseEntity<Admin> createAdmin(@RequestBody Admin admin,
+                                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(service.createAdmin(admin, idempotencyKey));
     }
 
     @Operation(
@@ -1,5 +1,6 @@
 package com.healthcare.admin_service.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -29,5 +30,10 @@ public class Admin {
 
     private String gender;
 
+    // auth-service user id sent as Idempotency-Key, so a retried registration finds this row
+    @JsonIgnore
+    @Column(unique = true, updatable = false, length = 64)
+    private String registrationKey;
+
 }
 
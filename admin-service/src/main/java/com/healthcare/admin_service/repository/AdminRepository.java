@@ -4,9 +4,12 @@ import com.healthcare.admin_service.entity.Admin;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface AdminRepository extends JpaRepository<Admin, String> {
     boolean existsByEmail(String email);
+    Optional<Admin> findByRegistrationKey(String registrationKey);
 }
 
 
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class AdminService {
@@ -19,10 +20,16 @@ public class AdminService {
     }
 
     @Transactional
-    public Admin createAdmin(Admin admin) {
+    public Admin createAdmin(Admin admin, String registrationKey) {
+        // a retried call whose first attempt committed gets the same admin back, not a conflict
+        if (registrationKey != null) {
+            Optional<Admin> existing = repository.findByRegistrationKey(registrationKey);
+            if (existing.isPresent()) return existing.get();
+        }
         if (repository.existsByEmail(admin.getEmail())) {
             throw new AdminAlreadyExistsException("Admin already exists with email: " + admin.getEmail());
         }
+        admin.setRegistrationKey(registrationKey);
         return repository.save(admin);
     }
 
@@ -0,0 +1,157 @@
+package com.healthcare.api_gateway.bff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.healthcare.api_gateway.concurrency.AdaptiveConcurrencyFilter;
+import com.healthcare.api_gateway.ratelimit.RateLimitFilter;
+import com.healthcare.api_gateway.security.IdentityHeaderSigner;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds the patient dashboard from patient-service and appointment-service in one pass:
+ * profile, bookings and appointments are fetched in parallel, then the doctors they reference
+ * are looked up once each (through the patient-facing doctor view) with bounded concurrency.
+ * Every call has its own timeout; a failed or slow leg leaves a {@code null} section and an
+ * entry under {@code errors}.
+ * <p>
+ * Legs do not go back through the gateway, so each one gets what a routed request would: identity
+ * headers signed for its own path, a token from the caller's rate-limit bucket and a permit from
+ * the concurrency limiter of the route it stands in for.
+ */
+@Component
+public class PatientDashboardAggregator {
+
+    // ids of the application.yml routes each leg stands in for
+    private static final String PATIENT_ROUTE = "patient-service";
+    private static final String APPOINTMENT_ROUTE = "appointment-service";
+    private static final String DOCTOR_ROUTE = "patient-doctor-directory";
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final IdentityHeaderSigner identitySigner;
+    private final RateLimitFilter rateLimit;
+    private final AdaptiveConcurrencyFilter concurrency;
+
+    public PatientDashboardAggregator(WebClient.Builder builder,
+                                      ReactorLoadBalancerExchangeFilterFunction loadBalancer,
+                                      ObjectMapper objectMapper,
+                                      IdentityHeaderSigner identitySigner,
+                                      RateLimitFilter rateLimit,
+                                      AdaptiveConcurrencyFilter concurrency) {
+        this.webClient = builder.filter(loadBalancer).build();
+        this.objectMapper = objectMapper;
+        this.identitySigner = identitySigner;
+        this.rateLimit = rateLimit;
+        this.concurrency = concurrency;
+    }
+
+    /** The aggregated document; {@code empty} when every primary leg failed. */
+    public record Result(ObjectNode document, boolean empty) {
+    }
+
+    /** The verified caller the legs are made for; {@code authorization} is forwarded as is. */
+    public record Caller(String authorization, String subject, String role, String domainId) {
+    }
+
+    public Mono<Result> aggregate(String patientId, Caller caller, Duration legTimeout,
+                                      int doctorConcurrency, int maxDoctors) {
+        Map<String, String> errors = new ConcurrentHashMap<>();
+
+        Mono<JsonNode> profile = leg("profile", PATIENT_ROUTE, "http://PATIENT-SERVICE/patients/{id}", patientId,
+                caller, legTimeout, errors);
+        Mono<JsonNode> bookings = leg("bookings", PATIENT_ROUTE, "http://PATIENT-SERVICE/patients/{id}/bookings", patientId,
+                caller, legTimeout, errors);
+        Mono<JsonNode> appointments = leg("appointments", APPOINTMENT_ROUTE, "http://APPOINTMENT-SERVICE/appointments/patient/{id}", patientId,
+                caller, legTimeout, errors);
+
+        // Doctor lookups only need bookings and appointments, so they do not wait for the profile.
+        Mono<ObjectNode> visits = Mono.zip(bookings, appointments).flatMap(t -> {
+            Set<String> doctorIds = new LinkedHashSet<>();
+            collectDoctorIds(t.getT1(), doctorIds, maxDoctors);
+            collectDoctorIds(t.getT2().path("items"), doctorIds, maxDoctors);
+            return Flux.fromIterable(doctorIds)
+                    .flatMap(id -> leg("doctor:" + id, DOCTOR_ROUTE, "http://PATIENT-SERVICE/patients/doctor/{id}", id,
+                            caller, legTimeout, errors).map(doctor -> Map.entry(id, doctor)), doctorConcurrency)
+                    .collectList()
+                    .map(doctors -> {
+                        ObjectNode node = objectMapper.createObjectNode();
+                        node.set("bookings", t.getT1());
+                        node.set("appointments", t.getT2().isNull() ? t.getT2() : t.getT2().path("items"));
+                        ObjectNode byId = node.putObject("doctors");
+                        doctors.forEach(e -> byId.set(e.getKey(), e.getValue()));
+                        return node;
+                    });
+        });
+
+        return Mono.zip(profile, visits).map(t -> {
+            boolean empty = t.getT1().isNull() && t.getT2().get("bookings").isNull()
+                    && t.getT2().get("appointments").isNull();
+            ObjectNode dashboard = objectMapper.createObjectNode();
+            dashboard.put("patientId", patientId);
+            dashboard.set("profile", t.getT1());
+            dashboard.setAll(t.getT2());
+            dashboard.put("partial", !errors.isEmpty());
+            ObjectNode errorNode = dashboard.putObject("errors");
+            errors.forEach(errorNode::put);
+            return new Result(dashboard, empty);
+        });
+    }
+
+    private Mono<JsonNode> leg(String name, String routeId, String uriTemplate, String id, Caller caller,
+                               Duration timeout, Map<String, String> errors) {
+        URI uri = UriComponentsBuilder.fromUriString(uriTemplate).buildAndExpand(id).encode().toUri();
+        Mono<JsonNode> call = webClient.get()
+                .uri(uri)
+                .headers(h -> {
+                    if (caller.authorization() != null) h.set(HttpHeaders.AUTHORIZATION, caller.authorization());
+                    // signed when the leg is sent, for the path it is sent to
+                    identitySigner.apply(h, "GET", uri.getRawPath(), caller.subject(), caller.role(), caller.domainId());
+                })
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(timeout);
+        return Mono.defer(() -> rateLimit.tryAcquire(caller.subject(), caller.role())
+                        ? concurrency.limit(routeId, call)
+                        : Mono.<JsonNode>error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS)))
+                .defaultIfEmpty(NullNode.getInstance())
+                .onErrorResume(e -> {
+                    errors.put(name, describe(e));
+                    return Mono.just(NullNode.getInstance());
+                });
+    }
+
+    private static void collectDoctorIds(JsonNode items, Set<String> into, int max) {
+        if (!items.isArray()) return;
+        for (JsonNode item : items) {
+            if (into.size() >= max) return;
+            String doctorId = item.path("doctorId").asText(null);
+            if (doctorId != null && !doctorId.isBlank()) into.add(doctorId);
+        }
+    }
+
+    private static String describe(Throwable e) {
+        if (e instanceof TimeoutException) return "timeout";
+        if (e instanceof WebClientResponseException w) return "HTTP " + w.getStatusCode().value();
+        if (e instanceof ResponseStatusException r) return "HTTP " + r.getStatusCode().value();
+        return e.getClass().getSimpleName();
+    }
+}
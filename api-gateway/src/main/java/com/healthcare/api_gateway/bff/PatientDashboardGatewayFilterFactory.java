@@ -0,0 +1,87 @@
+package com.healthcare.api_gateway.bff;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.api_gateway.filter.JwtAuthenticationFilter;
+import com.healthcare.api_gateway.security.IdentityHeaderSigner;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Terminal filter for {@code /bff/patients/{patientId}/dashboard} (route uri {@code no://op}):
+ * answers with one aggregated document instead of forwarding the request. Auth, role checks and
+ * rate limiting have already run as global filters; the legs are limited and signed again by
+ * {@link PatientDashboardAggregator}.
+ */
+@Component
+public class PatientDashboardGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<PatientDashboardGatewayFilterFactory.Config> {
+
+    private final PatientDashboardAggregator aggregator;
+    private final ObjectMapper objectMapper;
+
+    public PatientDashboardGatewayFilterFactory(PatientDashboardAggregator aggregator, ObjectMapper objectMapper) {
+        super(Config.class);
+        this.aggregator = aggregator;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("legTimeout", "doctorConcurrency", "maxDoctors");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String patientId = ServerWebExchangeUtils.getUriTemplateVariables(exchange).get("patientId");
+            HttpHeaders incoming = exchange.getRequest().getHeaders();
+            // the domain id header was set by JwtAuthenticationFilter from the verified token
+            PatientDashboardAggregator.Caller caller = new PatientDashboardAggregator.Caller(
+                    incoming.getFirst(HttpHeaders.AUTHORIZATION),
+                    exchange.getAttribute(JwtAuthenticationFilter.SUBJECT_ATTR),
+                    exchange.getAttribute(JwtAuthenticationFilter.ROLE_ATTR),
+                    incoming.getFirst(IdentityHeaderSigner.USER_DOMAIN_ID));
+
+            ServerHttpResponse response = exchange.getResponse();
+            return aggregator.aggregate(patientId, caller, config.getLegTimeout(),
+                            config.getDoctorConcurrency(), config.getMaxDoctors())
+                    .flatMap(result -> {
+                        try {
+                            byte[] body = objectMapper.writeValueAsBytes(result.document());
+                            // Partial data is still a useful screen; nothing at all means the backends are down.
+                            response.setStatusCode(result.empty() ? HttpStatus.BAD_GATEWAY : HttpStatus.OK);
+                            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+                        } catch (JsonProcessingException e) {
+                            return Mono.error(e);
+                        }
+                    });
+        };
+    }
+
+    public static class Config {
+        private Duration legTimeout = Duration.ofMillis(800);
+        private int doctorConcurrency = 4;
+        private int maxDoctors = 20;
+
+        public Duration getLegTimeout() { return legTimeout; }
+        public void setLegTimeout(Duration legTimeout) { this.legTimeout = legTimeout; }
+
+        public int getDoctorConcurrency() { return doctorConcurrency; }
+        public void setDoctorConcurrency(int doctorConcurrency) { this.doctorConcurrency = doctorConcurrency; }
+
+        public int getMaxDoctors() { return maxDoctors; }
+        public void setMaxDoctors(int maxDoctors) { this.maxDoctors = maxDoctors; }
+    }
+}
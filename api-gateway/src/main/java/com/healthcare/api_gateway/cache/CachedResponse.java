@@ -0,0 +1,30 @@
+package com.healthcare.api_gateway.cache;
+
+import com.healthcare.api_gateway.support.BufferedResponse;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** A buffered upstream response plus the freshness window it was stored with. */
+final class CachedResponse {
+
+    final BufferedResponse response;
+    final long storedAtNanos;
+    final long freshNanos;
+    final long staleNanos;
+    final AtomicBoolean refreshing = new AtomicBoolean();
+
+    CachedResponse(BufferedResponse response, long freshNanos, long staleNanos) {
+        this.response = response;
+        this.storedAtNanos = System.nanoTime();
+        this.freshNanos = freshNanos;
+        this.staleNanos = staleNanos;
+    }
+
+    boolean isFresh(long now) {
+        return now - storedAtNanos < freshNanos;
+    }
+
+    int weight() {
+        return response.body().length + 512; // rough allowance for headers and key
+    }
+}
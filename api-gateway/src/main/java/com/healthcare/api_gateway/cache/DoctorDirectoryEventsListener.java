@@ -0,0 +1,36 @@
+package com.healthcare.api_gateway.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Purges cached doctor reads when doctor-service reports a change. Every gateway instance
+ * consumes with its own group id so each one clears its local cache.
+ */
+@Component
+public class DoctorDirectoryEventsListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorDirectoryEventsListener.class);
+
+    private final GatewayResponseCache cache;
+
+    public DoctorDirectoryEventsListener(GatewayResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @KafkaListener(topics = {"doctor-verified", "doctor-profile-updated", "doctor-availability-updated"},
+            containerFactory = "broadcastListenerContainerFactory")
+    public void onDoctorChanged(@Payload String doctorId, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+        String id = doctorId.trim();
+        String doctorPath = "/doctors/" + id;
+        String patientViewPath = "/patients/doctor/" + id;
+        cache.invalidatePaths(path -> path.equals(doctorPath) || path.startsWith(doctorPath + "/")
+                || path.equals(patientViewPath) || path.startsWith(patientViewPath + "/"));
+        log.debug("Purged cached responses for doctor {} after {}", id, topic);
+    }
+}
@@ -0,0 +1,86 @@
+package com.healthcare.api_gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.healthcare.api_gateway.support.RequestKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Byte-bounded store behind the {@code ResponseCache} route filter. Entries live for their TTL
+ * plus the stale-while-revalidate window; within the stale window they are still served while
+ * one request refreshes them in the background.
+ * <p>
+ * Every purge bumps a generation; a response fetched before the purge is not stored afterwards,
+ * so a miss in flight during a purge cannot put the pre-update body back for a whole TTL.
+ */
+@Component
+public class GatewayResponseCache {
+
+    private final Cache<RequestKey, CachedResponse> cache;
+    private final int maxEntryBytes;
+    private final AtomicLong generation = new AtomicLong();
+
+    public GatewayResponseCache(@Value("${gateway.response-cache.max-bytes:67108864}") long maxBytes,
+                                @Value("${gateway.response-cache.max-entry-bytes:262144}") int maxEntryBytes,
+                                MeterRegistry meterRegistry) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((RequestKey key, CachedResponse value) -> value.weight())
+                .expireAfter(new UntilStale())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response");
+    }
+
+    CachedResponse get(RequestKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    /** Purge generation to pass to {@link #put}; read it before fetching the response. */
+    long generation() {
+        return generation.get();
+    }
+
+    /** Stores {@code response} unless a purge ran since {@code fetchedAtGeneration} was read. */
+    void put(RequestKey key, CachedResponse response, long fetchedAtGeneration) {
+        if (generation.get() != fetchedAtGeneration) return;
+        cache.put(key, response);
+        // a purge that started between the check and the put has to win
+        if (generation.get() != fetchedAtGeneration) cache.asMap().remove(key, response);
+    }
+
+    int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /** Drops every entry whose request path matches. */
+    public void invalidatePaths(Predicate<String> pathMatcher) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> pathMatcher.test(key.path()));
+    }
+
+    private static final class UntilStale implements Expiry<RequestKey, CachedResponse> {
+        @Override
+        public long expireAfterCreate(RequestKey key, CachedResponse value, long currentTime) {
+            return value.freshNanos + value.staleNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(RequestKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return value.freshNanos + value.staleNanos;
+        }
+
+        @Override
+        public long expireAfterRead(RequestKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.healthcare.api_gateway.cache;
+
+import com.healthcare.api_gateway.support.BufferedResponse;
+import com.healthcare.api_gateway.support.DetachedExchange;
+import com.healthcare.api_gateway.support.RequestKey;
+import com.healthcare.api_gateway.support.ResponseCaptureFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Opt-in shared cache for idempotent reads, e.g. {@code - ResponseCache=30s,2m} for a 30 second
+ * TTL followed by two minutes of stale-while-revalidate. Only 200 responses to GET are stored.
+ * <p>
+ * Runs after JWT verification (so the role is known and unauthorised callers never see a cached
+ * body) but before per-route concurrency limiting, so hits cost upstream nothing. Misses are stored
+ * from the copy {@link ResponseCaptureFilter} keeps of the client's response, and only if no purge
+ * ran while they were in flight.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    static final int ORDER = 5;
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheGatewayFilterFactory.class);
+
+    private final GatewayResponseCache cache;
+    private final NettyWriteResponseFilter writeFilter;
+
+    public ResponseCacheGatewayFilterFactory(GatewayResponseCache cache, NettyWriteResponseFilter writeFilter) {
+        super(Config.class);
+        this.cache = cache;
+        this.writeFilter = writeFilter;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl", "staleWhileRevalidate");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        long freshNanos = config.getTtl().toNanos();
+        long staleNanos = config.getStaleWhileRevalidate().toNanos();
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) return chain.filter(exchange);
+
+            RequestKey key = RequestKey.of(exchange);
+            CachedResponse cached = cache.get(key);
+            if (cached != null) {
+                boolean fresh = cached.isFresh(System.nanoTime());
+                if (!fresh && cached.refreshing.compareAndSet(false, true)) {
+                    revalidate(exchange, chain, key, cached, freshNanos, staleNanos);
+                }
+                return write(exchange.getResponse(), cached, fresh ? "HIT" : "STALE");
+            }
+
+            exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+            long generation = cache.generation();
+            ServerHttpResponse response = exchange.getResponse();
+            ResponseCaptureFilter.capture(exchange, cache.getMaxEntryBytes(), body -> {
+                if (body != null) {
+                    store(key, response.getStatusCode(), response.getHeaders(), body, generation, freshNanos, staleNanos);
+                }
+            });
+            return chain.filter(exchange);
+        }, ORDER);
+    }
+
+    private void revalidate(ServerWebExchange exchange, GatewayFilterChain chain, RequestKey key,
+                            CachedResponse stale, long freshNanos, long staleNanos) {
+        long generation = cache.generation();
+        DetachedExchange detached = new DetachedExchange(exchange, cache.getMaxEntryBytes());
+        detached.route(chain, writeFilter)
+                .doOnSuccess(v -> {
+                    byte[] body = detached.getResponse().getBody();
+                    if (body != null) {
+                        store(key, detached.getResponse().getStatusCode(), detached.getResponse().getHeaders(),
+                                body, generation, freshNanos, staleNanos);
+                    }
+                })
+                .doFinally(signal -> stale.refreshing.set(false))
+                .subscribe(null, e -> log.debug("Background refresh of {} failed: {}", key.path(), e.toString()));
+    }
+
+    private void store(RequestKey key, HttpStatusCode status, HttpHeaders responseHeaders, byte[] body,
+                       long generation, long freshNanos, long staleNanos) {
+        if (status == null || status.value() != HttpStatus.OK.value()) return;
+        String cacheControl = responseHeaders.getCacheControl();
+        if (cacheControl != null && (cacheControl.contains("no-store") || cacheControl.contains("private"))) return;
+
+        cache.put(key, new CachedResponse(BufferedResponse.copyOf(status, responseHeaders, body, CACHE_STATUS_HEADER),
+                freshNanos, staleNanos), generation);
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, CachedResponse cached, String cacheStatus) {
+        response.getHeaders().set(CACHE_STATUS_HEADER, cacheStatus);
+        return cached.response.writeTo(response);
+    }
+
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(30);
+        private Duration staleWhileRevalidate = Duration.ZERO;
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+        public Duration getStaleWhileRevalidate() { return staleWhileRevalidate; }
+        public void setStaleWhileRevalidate(Duration staleWhileRevalidate) { this.staleWhileRevalidate = staleWhileRevalidate; }
+    }
+}
@@ -0,0 +1,106 @@
+package com.healthcare.api_gateway.coalesce;
+
+import com.healthcare.api_gateway.support.BufferedResponse;
+import com.healthcare.api_gateway.support.RequestKey;
+import com.healthcare.api_gateway.support.ResponseCaptureFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight for idempotent reads, e.g. {@code - Coalesce=true,256KB}. While a GET is in
+ * flight upstream, identical GETs (same URL and role) wait for it and receive a copy of its
+ * buffered response instead of making their own call.
+ * <p>
+ * If the shared response turns out larger than the size cap, fails, or is a 5xx, waiters fall
+ * back to calling upstream themselves, so coalescing can only remove calls, never lose them.
+ * Runs after the response cache and before per-route concurrency limiting. The leader's body is
+ * the copy {@link ResponseCaptureFilter} keeps of what was written to its client, so waiters are
+ * released only once that response is complete.
+ */
+@Component
+public class CoalesceGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<CoalesceGatewayFilterFactory.Config> {
+
+    static final int ORDER = 7;
+
+    private final Map<RequestKey, Sinks.One<BufferedResponse>> inflight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final Counter fallbacks;
+
+    public CoalesceGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.coalesced = meterRegistry.counter("gateway.coalesce.requests", "outcome", "shared");
+        this.fallbacks = meterRegistry.counter("gateway.coalesce.requests", "outcome", "fallback");
+        meterRegistry.gaugeMapSize("gateway.coalesce.inflight", List.of(), inflight);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("enabled", "maxBodySize");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        int maxBodyBytes = (int) Math.min(Integer.MAX_VALUE, config.getMaxBodySize().toBytes());
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (!config.isEnabled() || exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            RequestKey key = RequestKey.of(exchange);
+            Sinks.One<BufferedResponse> leader = Sinks.one();
+            Sinks.One<BufferedResponse> existing = inflight.putIfAbsent(key, leader);
+
+            if (existing != null) {
+                return existing.asMono()
+                        .flatMap(shared -> {
+                            coalesced.increment();
+                            return shared.writeTo(exchange.getResponse()).thenReturn(true);
+                        })
+                        .switchIfEmpty(Mono.defer(() -> {
+                            fallbacks.increment();
+                            return chain.filter(exchange).thenReturn(true);
+                        }))
+                        .then();
+            }
+
+            ServerHttpResponse response = exchange.getResponse();
+            // called exactly once, also when the call fails or is cancelled (body == null)
+            ResponseCaptureFilter.capture(exchange, maxBodyBytes, body -> {
+                inflight.remove(key, leader);
+                HttpStatusCode status = response.getStatusCode();
+                if (body != null && status != null && !status.is5xxServerError()) {
+                    leader.tryEmitValue(BufferedResponse.copyOf(status, response.getHeaders(), body));
+                } else {
+                    leader.tryEmitEmpty();
+                }
+            });
+            return chain.filter(exchange);
+        }, ORDER);
+    }
+
+    public static class Config {
+        private boolean enabled = true;
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public DataSize getMaxBodySize() { return maxBodySize; }
+        public void setMaxBodySize(DataSize maxBodySize) { this.maxBodySize = maxBodySize; }
+    }
+}
@@ -0,0 +1,114 @@
+package com.healthcare.api_gateway.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sheds load per {@code lb://} route before requests queue on upstream connections, so a slow
+ * service only degrades its own route. Runs after authentication and rate limiting so rejected
+ * callers never consume a permit.
+ */
+@Component
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+
+    private final AdaptiveConcurrencyProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, GradientConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyFilter(AdaptiveConcurrencyProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null || !"lb".equals(route.getUri().getScheme())) {
+            return chain.filter(exchange);
+        }
+
+        GradientConcurrencyLimiter limiter = limiters.computeIfAbsent(route.getId(), this::register);
+        if (!limiter.tryAcquire()) {
+            meterRegistry.counter("gateway.concurrency.rejected", "route", route.getId()).increment();
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return exchange.getResponse().setComplete();
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> release(limiter, signal, exchange.getResponse().getStatusCode(), start));
+    }
+
+    /**
+     * Counts a call the gateway makes itself (e.g. a BFF leg) against {@code routeId}'s limit,
+     * as if it had come in through that route. Fails with 503 when the route is at its limit.
+     */
+    public <T> Mono<T> limit(String routeId, Mono<T> call) {
+        if (!properties.isEnabled()) return call;
+        return Mono.defer(() -> {
+            GradientConcurrencyLimiter limiter = limiters.computeIfAbsent(routeId, this::register);
+            if (!limiter.tryAcquire()) {
+                meterRegistry.counter("gateway.concurrency.rejected", "route", routeId).increment();
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE));
+            }
+            long start = System.nanoTime();
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            return call.doOnError(error::set).doFinally(signal -> {
+                // an HTTP error status is an answer, judged by its code like a routed response
+                if (error.get() instanceof WebClientResponseException e) {
+                    release(limiter, SignalType.ON_COMPLETE, e.getStatusCode(), start);
+                } else {
+                    release(limiter, signal, null, start);
+                }
+            });
+        });
+    }
+
+    private static void release(GradientConcurrencyLimiter limiter, SignalType signal, HttpStatusCode status, long start) {
+        if (signal == SignalType.CANCEL) {
+            limiter.onIgnore();
+            return;
+        }
+        if (signal == SignalType.ON_ERROR || (status != null && status.value() >= 502 && status.value() <= 504)) {
+            limiter.onDropped();
+        } else {
+            limiter.onSuccess(System.nanoTime() - start);
+        }
+    }
+
+    private GradientConcurrencyLimiter register(String routeId) {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(properties);
+        Gauge.builder("gateway.concurrency.limit", limiter, GradientConcurrencyLimiter::getLimit)
+                .tag("route", routeId).register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, GradientConcurrencyLimiter::getInflight)
+                .tag("route", routeId).register(meterRegistry);
+        return limiter;
+    }
+
+    Map<String, GradientConcurrencyLimiter> limiters() {
+        return Collections.unmodifiableMap(limiters);
+    }
+
+    @Override
+    public int getOrder() {
+        return 10;
+    }
+}
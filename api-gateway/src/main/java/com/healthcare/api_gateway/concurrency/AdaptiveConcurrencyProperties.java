@@ -0,0 +1,45 @@
+package com.healthcare.api_gateway.concurrency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for the per-route gradient concurrency limiter. Defaults follow the usual gradient
+ * settings: a short RTT window that reacts to queueing and a long one that tracks the no-load RTT.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.concurrency")
+public class AdaptiveConcurrencyProperties {
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 500;
+    private double smoothing = 0.2;      // weight of a new estimate
+    private double rttTolerance = 1.5;   // how much queueing latency is accepted before shrinking
+    private int shortWindow = 10;        // samples
+    private int longWindow = 600;        // samples
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getInitialLimit() { return initialLimit; }
+    public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+
+    public int getMinLimit() { return minLimit; }
+    public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+
+    public int getMaxLimit() { return maxLimit; }
+    public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+    public double getSmoothing() { return smoothing; }
+    public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+
+    public double getRttTolerance() { return rttTolerance; }
+    public void setRttTolerance(double rttTolerance) { this.rttTolerance = rttTolerance; }
+
+    public int getShortWindow() { return shortWindow; }
+    public void setShortWindow(int shortWindow) { this.shortWindow = shortWindow; }
+
+    public int getLongWindow() { return longWindow; }
+    public void setLongWindow(int longWindow) { this.longWindow = longWindow; }
+}
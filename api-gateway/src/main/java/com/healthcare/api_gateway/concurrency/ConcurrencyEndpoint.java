@@ -0,0 +1,33 @@
+package com.healthcare.api_gateway.concurrency;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/** {@code /actuator/concurrency}: current adaptive limit and shedding per route. */
+@Component
+@Endpoint(id = "concurrency")
+public class ConcurrencyEndpoint {
+
+    private final AdaptiveConcurrencyFilter filter;
+
+    public ConcurrencyEndpoint(AdaptiveConcurrencyFilter filter) {
+        this.filter = filter;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> limits() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        filter.limiters().forEach((route, limiter) -> result.put(route, Map.of(
+                "limit", limiter.getLimit(),
+                "inflight", limiter.getInflight(),
+                "rejected", limiter.getRejected(),
+                "shortRttMs", limiter.getShortRttMillis(),
+                "longRttMs", limiter.getLongRttMillis()
+        )));
+        return result;
+    }
+}
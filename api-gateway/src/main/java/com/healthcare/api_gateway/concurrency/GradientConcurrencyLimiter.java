@@ -0,0 +1,108 @@
+package com.healthcare.api_gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gradient concurrency limit for a single downstream route.
+ * <p>
+ * The limit follows {@code limit * (tolerance * longRtt / shortRtt) + sqrt(limit)}: while the
+ * recent RTT stays near the long-run RTT the limit grows by a small queue allowance, and as
+ * soon as requests start queueing upstream (short RTT rises) it shrinks proportionally.
+ * Admission is a CAS on the in-flight counter; the limit itself is only recomputed on samples.
+ */
+public class GradientConcurrencyLimiter {
+
+    private final AdaptiveConcurrencyProperties props;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+
+    public GradientConcurrencyLimiter(AdaptiveConcurrencyProperties props) {
+        this.props = props;
+        this.limit = props.getInitialLimit();
+        this.estimatedLimit = props.getInitialLimit();
+    }
+
+    /** @return {@code false} when the route is at its limit and the request should be shed */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /** Releases a permit and feeds the observed round trip into the limit. */
+    public void onSuccess(long rttNanos) {
+        int inflightAtRelease = inflight.getAndDecrement();
+        update(rttNanos, inflightAtRelease);
+    }
+
+    /** Upstream failed or timed out: back off multiplicatively. */
+    public void onDropped() {
+        inflight.decrementAndGet();
+        synchronized (this) {
+            estimatedLimit = Math.max(props.getMinLimit(), estimatedLimit * 0.9);
+            limit = (int) estimatedLimit;
+        }
+    }
+
+    /** Client went away before a response; no signal about upstream health. */
+    public void onIgnore() {
+        inflight.decrementAndGet();
+    }
+
+    private synchronized void update(long rttNanos, int inflightAtRelease) {
+        double rtt = rttNanos;
+        samples++;
+        shortRtt = ewma(shortRtt, rtt, props.getShortWindow());
+        longRtt = ewma(longRtt, rtt, props.getLongWindow());
+
+        // A sustained shift (e.g. a slower deploy) would otherwise pin the limit at its minimum.
+        if (longRtt / shortRtt > 2) longRtt *= 0.95;
+
+        // Not enough load to learn anything about upstream capacity.
+        if (inflightAtRelease < estimatedLimit / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, props.getRttTolerance() * longRtt / shortRtt));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        next = estimatedLimit * (1 - props.getSmoothing()) + next * props.getSmoothing();
+        estimatedLimit = Math.max(props.getMinLimit(), Math.min(props.getMaxLimit(), next));
+        limit = (int) estimatedLimit;
+    }
+
+    private double ewma(double current, double sample, int window) {
+        if (samples == 1) return sample;
+        double alpha = 2.0 / (Math.min(samples, window) + 1);
+        return current + alpha * (sample - current);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public synchronized double getShortRttMillis() {
+        return shortRtt / 1_000_000.0;
+    }
+
+    public synchronized double getLongRttMillis() {
+        return longRtt / 1_000_000.0;
+    }
+}
@@ -1,28 +1,41 @@
 package com.healthcare.api_gateway.filter;
 
+import com.healthcare.api_gateway.security.IdentityHeaderSigner;
+import com.healthcare.api_gateway.security.RouteAuthorizationTrie;
+import com.healthcare.api_gateway.security.TokenRevocationList;
+import com.healthcare.api_gateway.security.VerifiedTokenCache;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.util.*;
 
 @Component
 public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
 
-    private static final String SECRET_KEY = "afafasfafafasfasfasfafacasdasfasxASFACASDFACASDFASFASFDAFASFASDAADSCSDFADCVSGCFVADXCcadwavfsfarvf";
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    /** Exchange attributes holding the verified JWT subject and role for later filters. */
+    public static final String SUBJECT_ATTR = JwtAuthenticationFilter.class.getName() + ".subject";
+    public static final String ROLE_ATTR = JwtAuthenticationFilter.class.getName() + ".role";
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+    private final VerifiedTokenCache tokenCache;
+    private final IdentityHeaderSigner identitySigner;
+    private final TokenRevocationList revocationList;
+    private final Counter missingToken;
+    private final Counter invalidToken;
+    private final Counter revokedToken;
+    private final Counter forbidden;
 
     private static final List<String> openApiEndpoints = List.of(
             "/v3/api-docs",
@@ -33,6 +46,7 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
             "/webjars/**",
             "/auth/register/doctor",
             "/auth/register/patient",
+            "/auth/register/status/",
             "/auth/login",
             "/auth/refresh",
             "/auth/forgot-password",
@@ -57,6 +71,7 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
         protectedEndpointsWithRoles.put("/patients/book/*/cancel", Map.of("POST", List.of("ROLE_PATIENT")));
         protectedEndpointsWithRoles.put("/patients/payments/intent", Map.of("POST", List.of("ROLE_PATIENT")));
         protectedEndpointsWithRoles.put("/patients/doctor/*", Map.of("GET", List.of("ROLE_PATIENT")));
+        protectedEndpointsWithRoles.put("/bff/patients/*/dashboard", Map.of("GET", List.of("ROLE_PATIENT")));
         protectedEndpointsWithRoles.put("/patients/doctor/*/availability", Map.of("GET", List.of("ROLE_PATIENT")));
         protectedEndpointsWithRoles.put("/patients/doctor/*/reviews", Map.of("GET", List.of("ROLE_PATIENT")));
 
@@ -71,6 +86,8 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
                 "GET", List.of("ROLE_DOCTOR")
         ));
         protectedEndpointsWithRoles.put("/doctors/*/availability/slots/block", Map.of("PUT", List.of("ROLE_DOCTOR")));
+        protectedEndpointsWithRoles.put("/doctors/*/availability/slots/lookup", Map.of("GET", List.of("ROLE_DOCTOR")));
+        protectedEndpointsWithRoles.put("/doctors/*/availability/slots/*/claim", Map.of("POST", List.of("ROLE_DOCTOR")));
         protectedEndpointsWithRoles.put("/doctors/*/appointments/upcoming", Map.of("GET", List.of("ROLE_DOCTOR")));
         protectedEndpointsWithRoles.put("/doctors/*/appointments/history", Map.of("GET", List.of("ROLE_DOCTOR")));
         protectedEndpointsWithRoles.put("/doctors/*/reviews", Map.of("GET", List.of("ROLE_DOCTOR")));
@@ -114,26 +131,44 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
         }
     }
 
-    private Key getSigningKey() {
-        return new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName());
+    // Compiled once at startup; literal segments win over '*' so the first match is deterministic.
+    private static final RouteAuthorizationTrie routeTable = RouteAuthorizationTrie.compile(protectedEndpointsWithRoles);
+
+    static RouteAuthorizationTrie routeTable() { // for GatewayRouteTableTest
+        return routeTable;
+    }
+
+    public JwtAuthenticationFilter(VerifiedTokenCache tokenCache, IdentityHeaderSigner identitySigner,
+                                   TokenRevocationList revocationList, MeterRegistry meterRegistry) {
+        this.tokenCache = tokenCache;
+        this.identitySigner = identitySigner;
+        this.revocationList = revocationList;
+        this.missingToken = meterRegistry.counter("gateway.auth.rejected", "reason", "missing_token");
+        this.invalidToken = meterRegistry.counter("gateway.auth.rejected", "reason", "invalid_token");
+        this.revokedToken = meterRegistry.counter("gateway.auth.rejected", "reason", "revoked");
+        this.forbidden = meterRegistry.counter("gateway.auth.rejected", "reason", "forbidden");
     }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         String path = exchange.getRequest().getURI().getPath();
-        System.out.println("[JwtAuth] Incoming path: " + path);
+        log.debug("[JwtAuth] Incoming path: {}", path);
         String method = exchange.getRequest().getMethod() != null
                 ? exchange.getRequest().getMethod().name()
                 : "";
 
         if (isPublicEndpoint(path)) {
-            System.out.println("[JwtAuth] Public endpoint — skipping auth.");
-            return chain.filter(exchange);
+            log.debug("[JwtAuth] Public endpoint — skipping auth.");
+            // never let a client smuggle its own identity headers past the gateway
+            return chain.filter(exchange.mutate()
+                    .request(r -> r.headers(identitySigner::strip))
+                    .build());
         }
 
         String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            System.out.println("[JwtAuth] Missing or malformed Authorization header.");
+            log.debug("[JwtAuth] Missing or malformed Authorization header.");
+            missingToken.increment();
             exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
             return exchange.getResponse().setComplete();
         }
@@ -141,27 +176,38 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
         String token = authHeader.substring(7);
 
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = tokenCache.verify(token);
+
+            // in-memory bloom/exact lookup, no call to auth-service
+            if (revocationList.isRevoked(claims)) {
+                log.debug("[JwtAuth] Token revoked for subject: {}", claims.getSubject());
+                revokedToken.increment();
+                exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                return exchange.getResponse().setComplete();
+            }
 
             String role = claims.get("role", String.class);
-            System.out.println("[JwtAuth] Role from token: " + role);
+            log.debug("[JwtAuth] Role from token: {}", role);
 
             if (!isAuthorized(path, method, role)) {
-                System.out.println("[JwtAuth] Access denied for role: " + role);
+                log.debug("[JwtAuth] Access denied for role: {} on {} {}", role, method, path);
+                forbidden.increment();
                 exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
                 return exchange.getResponse().setComplete();
             }
 
+            String subject = claims.getSubject();
+            String domainId = claims.get("domainId", String.class);
+            if (subject != null) exchange.getAttributes().put(SUBJECT_ATTR, subject);
+            if (role != null) exchange.getAttributes().put(ROLE_ATTR, role);
+            String rawPath = exchange.getRequest().getURI().getRawPath();
             exchange = exchange.mutate()
-                    .request(r -> r.header("X-User-Role", role))
+                    .request(r -> r.headers(h -> identitySigner.apply(h, method, rawPath, subject, role, domainId)))
                     .build();
 
         } catch (JwtException e) {
-            System.out.println("[JwtAuth] JWT validation error: " + e.getMessage());
+            log.debug("[JwtAuth] JWT validation error: {}", e.getMessage());
+            invalidToken.increment();
             exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
             return exchange.getResponse().setComplete();
         }
@@ -174,13 +220,7 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
     }
 
     private boolean isAuthorized(String path, String method, String role) {
-        for (Map.Entry<String, Map<String, List<String>>> entry : protectedEndpointsWithRoles.entrySet()) {
-            if (pathMatcher.match(entry.getKey(), path)) {
-                List<String> allowedRoles = entry.getValue().getOrDefault(method.toUpperCase(), List.of());
-                return allowedRoles.contains(role);
-            }
-        }
-        return true;
+        return routeTable.isAllowed(path, method, role);
     }
 
     @Override
@@ -0,0 +1,34 @@
+package com.healthcare.api_gateway.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps hedges at a percentage of traffic: every request deposits {@code percent / 100} of a
+ * token, every hedge spends a whole one. A small cap on saved tokens stops a quiet period from
+ * funding a burst of hedges later.
+ */
+final class HedgeBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance = new AtomicLong();
+
+    HedgeBudget(double percent, int maxSavedHedges) {
+        this.depositPerRequest = Math.round(percent / 100.0 * SCALE);
+        this.maxBalance = maxSavedHedges * SCALE;
+    }
+
+    void deposit() {
+        balance.accumulateAndGet(depositPerRequest, (current, add) -> Math.min(maxBalance, current + add));
+    }
+
+    boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) return false;
+            if (balance.compareAndSet(current, current - SCALE)) return true;
+        }
+    }
+}
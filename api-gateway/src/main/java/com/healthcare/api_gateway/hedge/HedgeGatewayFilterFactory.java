@@ -0,0 +1,145 @@
+package com.healthcare.api_gateway.hedge;
+
+import com.healthcare.api_gateway.support.BufferedResponse;
+import com.healthcare.api_gateway.support.DetachedExchange;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hedged reads, e.g. {@code - Hedge=0.95,5}: if the upstream has not answered within the
+ * route's observed p95 latency, a second request goes to a different instance; the first
+ * response wins and the other call is cancelled. Hedges are capped at the given percentage of
+ * the route's traffic. Only use on idempotent GET routes.
+ * <p>
+ * Both attempts run on detached exchanges and the winner is buffered before it is written, so
+ * a losing attempt can never have half-written the client's response. Each attempt reads its
+ * own upstream body through {@link DetachedExchange#route}, which also releases the loser's
+ * connection when it is cancelled.
+ */
+@Component
+public class HedgeGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgeGatewayFilterFactory.Config> {
+
+    /** Exchange attribute naming the instance ({@code host:port}) a hedge must avoid. */
+    public static final String EXCLUDED_INSTANCE_ATTR = HedgeGatewayFilterFactory.class.getName() + ".excludedInstance";
+
+    static final int ORDER = 8;
+
+    private final MeterRegistry meterRegistry;
+    private final NettyWriteResponseFilter writeFilter;
+    private final Map<String, RouteHedging> routes = new ConcurrentHashMap<>();
+
+    public HedgeGatewayFilterFactory(MeterRegistry meterRegistry, NettyWriteResponseFilter writeFilter) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.writeFilter = writeFilter;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("percentile", "budgetPercent");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        int maxBodyBytes = (int) Math.min(Integer.MAX_VALUE, config.getMaxBodySize().toBytes());
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) return chain.filter(exchange);
+
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "none";
+            RouteHedging hedging = routes.computeIfAbsent(routeId, id -> new RouteHedging(config));
+            hedging.budget.deposit();
+
+            long delayNanos = Math.max(config.getMinDelay().toNanos(), hedging.latencies.percentileNanos());
+            DetachedExchange primary = new DetachedExchange(exchange, maxBodyBytes);
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+
+            long start = System.nanoTime();
+            Mono<DetachedExchange> primaryCall = primary.route(chain, writeFilter)
+                    .doOnSuccess(v -> hedging.latencies.record(System.nanoTime() - start))
+                    .doOnError(primaryError::set)
+                    .thenReturn(primary);
+
+            Mono<DetachedExchange> hedgeCall = delayNanos == Long.MAX_VALUE ? Mono.empty() : Mono.delay(Duration.ofNanos(delayNanos))
+                    .filter(tick -> hedging.budget.tryWithdraw())
+                    .flatMap(tick -> {
+                        meterRegistry.counter("gateway.hedge.sent", "route", routeId).increment();
+                        DetachedExchange hedge = new DetachedExchange(exchange, maxBodyBytes);
+                        Response<ServiceInstance> chosen = primary.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+                        if (chosen != null && chosen.hasServer()) {
+                            ServiceInstance instance = chosen.getServer();
+                            hedge.getAttributes().put(EXCLUDED_INSTANCE_ATTR, instance.getHost() + ":" + instance.getPort());
+                        }
+                        return hedge.route(chain, writeFilter).thenReturn(hedge);
+                    });
+
+            // An empty hedge (no latency data yet, or over budget) simply leaves the primary to finish alone.
+            return Mono.firstWithValue(primaryCall, hedgeCall)
+                    .onErrorResume(e -> Mono.error(primaryError.get() != null ? primaryError.get() : e))
+                    .flatMap(winner -> {
+                        if (winner != primary) {
+                            meterRegistry.counter("gateway.hedge.won", "route", routeId).increment();
+                        }
+                        return write(exchange, chain, winner);
+                    });
+        }, ORDER);
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, GatewayFilterChain chain, DetachedExchange winner) {
+        byte[] body = winner.getResponse().getBody();
+        if (body == null) {
+            // Too large to buffer: rare enough that a plain, unhedged retry is the simplest answer.
+            return chain.filter(exchange);
+        }
+        return BufferedResponse.copyOf(winner.getResponse().getStatusCode(), winner.getResponse().getHeaders(), body)
+                .writeTo(exchange.getResponse());
+    }
+
+    private static final class RouteHedging {
+        private final LatencyWindow latencies;
+        private final HedgeBudget budget;
+
+        private RouteHedging(Config config) {
+            this.latencies = new LatencyWindow(1024, config.getPercentile());
+            this.budget = new HedgeBudget(config.getBudgetPercent(), 10);
+        }
+    }
+
+    public static class Config {
+        private double percentile = 0.95;
+        private double budgetPercent = 5;
+        private Duration minDelay = Duration.ofMillis(10);
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+        public double getPercentile() { return percentile; }
+        public void setPercentile(double percentile) { this.percentile = percentile; }
+
+        public double getBudgetPercent() { return budgetPercent; }
+        public void setBudgetPercent(double budgetPercent) { this.budgetPercent = budgetPercent; }
+
+        public Duration getMinDelay() { return minDelay; }
+        public void setMinDelay(Duration minDelay) { this.minDelay = minDelay; }
+
+        public DataSize getMaxBodySize() { return maxBodySize; }
+        public void setMaxBodySize(DataSize maxBodySize) { this.maxBodySize = maxBodySize; }
+    }
+}
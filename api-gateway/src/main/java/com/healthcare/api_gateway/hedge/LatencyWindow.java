@@ -0,0 +1,42 @@
+package com.healthcare.api_gateway.hedge;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the last {@code capacity} upstream latencies for one route. The requested
+ * percentile is recomputed every few samples rather than on each request.
+ */
+final class LatencyWindow {
+
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final long[] samples;
+    private final double percentile;
+    private int next;
+    private int size;
+    private int sinceRecompute;
+    private volatile long percentileNanos = Long.MAX_VALUE;
+
+    LatencyWindow(int capacity, double percentile) {
+        this.samples = new long[capacity];
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) size++;
+        if (size >= MIN_SAMPLES && (++sinceRecompute >= RECOMPUTE_EVERY || percentileNanos == Long.MAX_VALUE)) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            percentileNanos = sorted[(int) Math.min(size - 1, Math.floor(percentile * size))];
+            sinceRecompute = 0;
+        }
+    }
+
+    /** @return the configured percentile, or {@link Long#MAX_VALUE} until enough samples exist */
+    long percentileNanos() {
+        return percentileNanos;
+    }
+}
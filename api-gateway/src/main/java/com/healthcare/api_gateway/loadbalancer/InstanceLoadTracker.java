@@ -0,0 +1,132 @@
+package com.healthcare.api_gateway.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Observes every load-balanced gateway call and keeps, per instance, the number of requests in
+ * flight and a peak-sensitive EWMA of latency. Lives in the main context so all per-service
+ * load balancer contexts share the same view.
+ */
+@Component
+public class InstanceLoadTracker implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private final Map<String, InstanceLoad> loads = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long decayNanos;
+    private final long failurePenaltyNanos;
+
+    public InstanceLoadTracker(MeterRegistry meterRegistry,
+                               @Value("${gateway.loadbalancer.ewma-decay-ms:10000}") long decayMs,
+                               @Value("${gateway.loadbalancer.failure-penalty-ms:2000}") long failurePenaltyMs) {
+        this.meterRegistry = meterRegistry;
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMs);
+        this.failurePenaltyNanos = TimeUnit.MILLISECONDS.toNanos(failurePenaltyMs);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) return;
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+        load(lbResponse.getServer()).inflight.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion) {
+        Response<ServiceInstance> lbResponse = completion.getLoadBalancerResponse();
+        if (completion.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        InstanceLoad load = load(lbResponse.getServer());
+        load.inflight.decrementAndGet();
+
+        long now = System.nanoTime();
+        long rtt;
+        if (completion.status() == CompletionContext.Status.FAILED) {
+            rtt = failurePenaltyNanos;
+        } else if (completion.getLoadBalancerRequest().getContext() instanceof TimedRequestContext timed
+                && timed.getRequestStartTime() > 0) {
+            rtt = now - timed.getRequestStartTime();
+        } else {
+            return;
+        }
+        load.observe(rtt, now, decayNanos);
+    }
+
+    /**
+     * The load balancer filter reports success and failure but not cancellation (client went
+     * away, losing hedge), so {@link LoadBalancerCancellationFilter} releases those here.
+     */
+    void onCancel(ServiceInstance instance) {
+        InstanceLoad load = loads.get(keyOf(instance));
+        if (load != null) load.inflight.decrementAndGet();
+    }
+
+    /** Lower is better: expected wait if one more request joins the instance's queue. */
+    double cost(ServiceInstance instance) {
+        InstanceLoad load = loads.get(keyOf(instance));
+        if (load == null) return 0;
+        return load.ewma(System.nanoTime(), decayNanos) * (load.inflight.get() + 1);
+    }
+
+    private InstanceLoad load(ServiceInstance instance) {
+        return loads.computeIfAbsent(keyOf(instance), key -> {
+            InstanceLoad load = new InstanceLoad();
+            String service = instance.getServiceId() == null ? "" : instance.getServiceId();
+            Gauge.builder("gateway.loadbalancer.inflight", load, l -> l.inflight.get())
+                    .tags("service", service, "instance", key).register(meterRegistry);
+            Gauge.builder("gateway.loadbalancer.latency.ewma", load, l -> l.ewma(System.nanoTime(), decayNanos) / 1_000_000.0)
+                    .tags("service", service, "instance", key).baseUnit("milliseconds").register(meterRegistry);
+            return load;
+        });
+    }
+
+    static String keyOf(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static final class InstanceLoad {
+        private final AtomicInteger inflight = new AtomicInteger();
+        private double ewmaNanos;
+        private long lastUpdate;
+
+        /** Peak EWMA: jumps straight up to a slow sample, decays back down over time. */
+        synchronized void observe(long rttNanos, long now, long decayNanos) {
+            double current = ewma(now, decayNanos);
+            if (lastUpdate == 0 || rttNanos > current) {
+                ewmaNanos = rttNanos;
+            } else {
+                double weight = Math.exp(-(double) (now - lastUpdate) / decayNanos);
+                ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+            }
+            lastUpdate = now;
+        }
+
+        /** Idle instances drift back towards zero so they get probed again after a bad spell. */
+        synchronized double ewma(long now, long decayNanos) {
+            if (lastUpdate == 0) return 0;
+            return ewmaNanos * Math.exp(-(double) (now - lastUpdate) / decayNanos);
+        }
+    }
+}
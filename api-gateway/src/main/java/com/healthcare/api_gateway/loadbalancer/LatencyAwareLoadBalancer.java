@@ -0,0 +1,76 @@
+package com.healthcare.api_gateway.loadbalancer;
+
+import com.healthcare.api_gateway.hedge.HedgeGatewayFilterFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices: samples two distinct instances at random and sends the request to the
+ * one with the lower {@code latency EWMA x (in-flight + 1)}. Random sampling keeps herds off the
+ * single "best" instance while a slow one (GC pause, hot shard) quickly sheds most of its share.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final InstanceLoadTracker tracker;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                    String serviceId, InstanceLoadTracker tracker) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.tracker = tracker;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String excluded = excludedInstance(request);
+        return supplier.get(request).next().map(instances -> choose(instances, excluded));
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances, String excluded) {
+        if (excluded != null && instances.size() > 1) {
+            instances = instances.stream().filter(i -> !excluded.equals(InstanceLoadTracker.keyOf(i))).toList();
+        }
+        if (instances.isEmpty()) return new EmptyResponse();
+        if (instances.size() == 1) return new DefaultResponse(instances.get(0));
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) second++;
+
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return new DefaultResponse(tracker.cost(a) <= tracker.cost(b) ? a : b);
+    }
+
+    /** A hedged request must not land on the instance the primary attempt is already waiting on. */
+    @SuppressWarnings("rawtypes")
+    private static String excludedInstance(Request request) {
+        if (request != null && request.getContext() instanceof RequestDataContext context
+                && context.getClientRequest() != null && context.getClientRequest().getAttributes() != null) {
+            Object excluded = context.getClientRequest().getAttributes().get(HedgeGatewayFilterFactory.EXCLUDED_INSTANCE_ATTR);
+            return excluded instanceof String key ? key : null;
+        }
+        return null;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+}
@@ -0,0 +1,27 @@
+package com.healthcare.api_gateway.loadbalancer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-service load balancer configuration, registered through {@code @LoadBalancerClients}.
+ * Deliberately not a {@code @Configuration}: it must only be loaded into the per-service child
+ * contexts, never picked up by component scanning. With the flag off the default round robin applies.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(value = "gateway.loadbalancer.latency-aware.enabled", havingValue = "true", matchIfMissing = true)
+    public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(Environment environment,
+                                                                         LoadBalancerClientFactory clientFactory,
+                                                                         InstanceLoadTracker tracker) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LatencyAwareLoadBalancer(
+                clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId, tracker);
+    }
+}
@@ -0,0 +1,67 @@
+package com.healthcare.api_gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+
+/**
+ * Times every routed request end to end ({@code gateway.route.latency}), from before JWT
+ * verification until the response is written, tagged by route id, method and status class.
+ * Together with {@link UpstreamLatencyMetricsFilter} this separates time spent in the gateway
+ * from time spent waiting on the downstream service.
+ */
+@Component
+public class RouteLatencyMetricsFilter implements GlobalFilter, Ordered {
+
+    static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+
+    public RouteLatencyMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal ->
+                record(meterRegistry, "gateway.route.latency", exchange, signal, System.nanoTime() - start));
+    }
+
+    static void record(MeterRegistry registry, String name, ServerWebExchange exchange, SignalType signal, long nanos) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Timer.builder(name)
+                .tag("route", route != null ? route.getId() : "none")
+                .tag("method", exchange.getRequest().getMethod().name())
+                .tag("status", statusClass(exchange.getResponse().getStatusCode(), signal))
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    private static String statusClass(HttpStatusCode status, SignalType signal) {
+        if (signal == SignalType.CANCEL) return "CANCELLED";
+        if (signal == SignalType.ON_ERROR) return "ERROR";
+        if (status == null) return "2xx";
+        return (status.value() / 100) + "xx";
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
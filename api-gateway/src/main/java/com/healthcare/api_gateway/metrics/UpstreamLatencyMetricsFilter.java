@@ -0,0 +1,38 @@
+package com.healthcare.api_gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times only the downstream call ({@code gateway.upstream.latency}), up to the arrival of the
+ * upstream response headers: sits directly in front of the routing filter, after authentication,
+ * limiting, caching and load balancing are done. Requests answered by the gateway itself
+ * (cache hits, 401/403/429/503) never reach it.
+ */
+@Component
+public class UpstreamLatencyMetricsFilter implements GlobalFilter, Ordered {
+
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamLatencyMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal ->
+                RouteLatencyMetricsFilter.record(meterRegistry, "gateway.upstream.latency", exchange, signal,
+                        System.nanoTime() - start));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+}
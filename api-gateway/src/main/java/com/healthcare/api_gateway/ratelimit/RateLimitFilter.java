@@ -0,0 +1,101 @@
+package com.healthcare.api_gateway.ratelimit;
+
+import com.healthcare.api_gateway.filter.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control per caller. Authenticated requests are keyed by JWT subject, public ones
+ * (e.g. /auth/login, /api/messaging/otp/send) by client IP. Runs right after
+ * {@link JwtAuthenticationFilter} so the subject and role are already known.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private final TokenBucketRateLimiter limiter;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RateLimitProperties.Limit> pathLimits = new HashMap<>();
+
+    public RateLimitFilter(TokenBucketRateLimiter limiter, RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        for (RateLimitProperties.PathLimit limit : properties.getPaths()) {
+            pathLimits.put(normalize(limit.getPath()), limit);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) return chain.filter(exchange);
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "none";
+        String subject = exchange.getAttribute(JwtAuthenticationFilter.SUBJECT_ATTR);
+        String role = exchange.getAttribute(JwtAuthenticationFilter.ROLE_ATTR);
+
+        // only the listed endpoints get their own bucket; the rest of the route falls through
+        String path = normalize(exchange.getRequest().getURI().getPath());
+        RateLimitProperties.Limit limit = pathLimits.get(path);
+        String scope = path;
+        if (limit == null) {
+            limit = role != null ? properties.getRoles().get(role) : null;
+            scope = "*";
+        }
+        if (limit == null) limit = properties.getDefaultLimit();
+
+        String caller = subject != null ? "sub:" + subject : "ip:" + clientIp(exchange);
+        long waitNanos = limiter.tryAcquire(scope + '|' + caller, limit);
+        if (waitNanos == 0) return chain.filter(exchange);
+
+        meterRegistry.counter("gateway.ratelimit.rejected", "route", routeId).increment();
+        long retryAfterSec = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSec));
+        return exchange.getResponse().setComplete();
+    }
+
+    /**
+     * Charges one request to an authenticated caller's role bucket, for upstream calls the
+     * gateway makes on their behalf (e.g. BFF legs).
+     */
+    public boolean tryAcquire(String subject, String role) {
+        if (!properties.isEnabled() || subject == null) return true;
+        RateLimitProperties.Limit limit = role != null ? properties.getRoles().get(role) : null;
+        if (limit == null) limit = properties.getDefaultLimit();
+        return limiter.tryAcquire("*|sub:" + subject, limit) == 0;
+    }
+
+    private static String normalize(String path) {
+        if (path == null) return "";
+        int end = path.length();
+        while (end > 1 && path.charAt(end - 1) == '/') end--;
+        return path.substring(0, end);
+    }
+
+    private static String clientIp(ServerWebExchange exchange) {
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        if (remote == null) return "unknown";
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.healthcare.api_gateway.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token-bucket limits for the gateway. A path-specific limit (exact path, for brute-force
+ * sensitive endpoints like /auth/login) wins over a role limit, which wins over the default.
+ * Role keys must be bracketed in YAML, e.g. {@code "[ROLE_PATIENT]"}.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private int stripes = 16;
+    private long idleEvictionSec = 300;
+    private Limit defaultLimit = new Limit();
+    private Map<String, Limit> roles = new HashMap<>();
+    private List<PathLimit> paths = new ArrayList<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getStripes() { return stripes; }
+    public void setStripes(int stripes) { this.stripes = stripes; }
+
+    public long getIdleEvictionSec() { return idleEvictionSec; }
+    public void setIdleEvictionSec(long idleEvictionSec) { this.idleEvictionSec = idleEvictionSec; }
+
+    public Limit getDefaultLimit() { return defaultLimit; }
+    public void setDefaultLimit(Limit defaultLimit) { this.defaultLimit = defaultLimit; }
+
+    public Map<String, Limit> getRoles() { return roles; }
+    public void setRoles(Map<String, Limit> roles) { this.roles = roles; }
+
+    public List<PathLimit> getPaths() { return paths; }
+    public void setPaths(List<PathLimit> paths) { this.paths = paths; }
+
+    public static class Limit {
+        private long capacity = 100;           // burst size
+        private double refillPerSecond = 50;   // sustained rate
+
+        public long getCapacity() { return capacity; }
+        public void setCapacity(long capacity) { this.capacity = capacity; }
+
+        public double getRefillPerSecond() { return refillPerSecond; }
+        public void setRefillPerSecond(double refillPerSecond) { this.refillPerSecond = refillPerSecond; }
+    }
+
+    public static class PathLimit extends Limit {
+        private String path;
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+    }
+}
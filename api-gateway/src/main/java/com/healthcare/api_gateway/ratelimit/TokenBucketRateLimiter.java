@@ -0,0 +1,84 @@
+package com.healthcare.api_gateway.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets keyed by caller.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding its "theoretical arrival time" (GCRA),
+ * which is equivalent to a token bucket but needs only one CAS per request. Buckets are
+ * spread over several independent maps so eviction sweeps and resizes never touch all keys
+ * at once. A bucket whose arrival time is far in the past is full, so evicting it loses no state.
+ */
+@Component
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentHashMap<String, Bucket>[] stripes;
+    private final long idleNanos;
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        int count = Math.max(1, properties.getStripes());
+        this.stripes = new ConcurrentHashMap[count];
+        for (int i = 0; i < count; i++) stripes[i] = new ConcurrentHashMap<>();
+        this.idleNanos = TimeUnit.SECONDS.toNanos(properties.getIdleEvictionSec());
+        meterRegistry.gauge("gateway.ratelimit.buckets", this, TokenBucketRateLimiter::size);
+    }
+
+    /**
+     * Takes one token for {@code key}.
+     *
+     * @return {@code 0} when the request is admitted, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        long now = System.nanoTime();
+        Bucket bucket = stripe(key).computeIfAbsent(key, k -> new Bucket(limit, now));
+        return bucket.tryAcquire(now);
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (ConcurrentHashMap<String, Bucket> stripe : stripes) {
+            stripe.values().removeIf(b -> now - b.tat.get() > idleNanos);
+        }
+    }
+
+    private long size() {
+        long total = 0;
+        for (ConcurrentHashMap<String, Bucket> stripe : stripes) total += stripe.size();
+        return total;
+    }
+
+    private ConcurrentHashMap<String, Bucket> stripe(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % stripes.length];
+    }
+
+    private static final class Bucket {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong tat;
+
+        private Bucket(RateLimitProperties.Limit limit, long now) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(limit.getRefillPerSecond(), 0.001));
+            this.burstNanos = intervalNanos * Math.max(1, limit.getCapacity());
+            this.tat = new AtomicLong(now);
+        }
+
+        private long tryAcquire(long now) {
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long allowAt = next - burstNanos;
+                if (allowAt > now) return allowAt - now;
+                if (tat.compareAndSet(current, next)) return 0;
+            }
+        }
+    }
+}
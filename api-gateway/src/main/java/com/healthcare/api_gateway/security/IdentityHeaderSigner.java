@@ -0,0 +1,86 @@
+package com.healthcare.api_gateway.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Signs the identity the gateway has already verified so downstream services can trust it
+ * without re-reading the user from their database.
+ * <p>
+ * The signature is {@code HMAC-SHA256(method \n rawPath \n subject \n role \n domainId \n issuedAt)}
+ * with a secret shared only between the gateway and the services, so a caller that bypasses the
+ * gateway cannot forge these headers, and a captured set only replays against the same method
+ * and path within the skew window.
+ */
+@Component
+public class IdentityHeaderSigner {
+
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_ROLE = "X-User-Role";
+    public static final String USER_DOMAIN_ID = "X-User-Domain-Id";
+    public static final String ISSUED_AT = "X-Identity-Issued-At";
+    public static final String SIGNATURE = "X-Identity-Signature";
+
+    /** Headers a client must never be able to set itself. */
+    public static final List<String> IDENTITY_HEADERS = List.of(USER_ID, USER_ROLE, USER_DOMAIN_ID, ISSUED_AT, SIGNATURE);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    /** The value this secret used to default to; refused like a missing one. */
+    static final String OLD_DEFAULT_SECRET = "change-me-gateway-identity-secret";
+    static final int MIN_SECRET_LENGTH = 32;
+
+    private final ThreadLocal<Mac> mac;
+
+    public IdentityHeaderSigner(@Value("${security.identity.secret:}") String secret) {
+        if (secret == null || secret.length() < MIN_SECRET_LENGTH || OLD_DEFAULT_SECRET.equals(secret)) {
+            throw new IllegalStateException("security.identity.secret (GATEWAY_IDENTITY_SECRET) must be set to a private value of at least "
+                    + MIN_SECRET_LENGTH + " characters");
+        }
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac m = Mac.getInstance(HMAC_ALGORITHM);
+                m.init(key);
+                return m;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /** Removes any client-supplied identity headers (public endpoints). */
+    public void strip(HttpHeaders headers) {
+        IDENTITY_HEADERS.forEach(headers::remove);
+    }
+
+    /**
+     * Replaces any client-supplied identity headers with the signed, gateway-verified ones for a
+     * {@code method} request to {@code rawPath} (undecoded, without the query string).
+     */
+    public void apply(HttpHeaders headers, String method, String rawPath, String subject, String role, String domainId) {
+        strip(headers);
+        if (subject == null) return;
+
+        String issuedAt = String.valueOf(System.currentTimeMillis() / 1000);
+        String domain = domainId == null ? "" : domainId;
+        headers.set(USER_ID, subject);
+        headers.set(USER_ROLE, role == null ? "" : role);
+        headers.set(USER_DOMAIN_ID, domain);
+        headers.set(ISSUED_AT, issuedAt);
+        headers.set(SIGNATURE, sign(method, rawPath, subject, role == null ? "" : role, domain, issuedAt));
+    }
+
+    private String sign(String method, String rawPath, String subject, String role, String domainId, String issuedAt) {
+        String payload = method + '\n' + rawPath + '\n' + subject + '\n' + role + '\n' + domainId + '\n' + issuedAt;
+        byte[] raw = mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+}
@@ -0,0 +1,149 @@
+package com.healthcare.api_gateway.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Route/role table compiled into a path-segment trie.
+ * <p>
+ * Patterns use the same "one segment" {@code *} wildcard the gateway has always used
+ * (e.g. {@code /doctors/*}/verify). Lookups walk the request path once, trying literal
+ * segments before {@code *}, so a more specific route always wins over a wildcard one
+ * regardless of registration order. Resolution works on string offsets and returns an
+ * int role bitmask, so it does not allocate per request.
+ */
+public final class RouteAuthorizationTrie {
+
+    /** Returned by {@link #resolve} when no protected pattern matches the path. */
+    public static final int NO_MATCH = -1;
+
+    private static final String WILDCARD = "*";
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS", "TRACE"};
+
+    private final Node root;
+    private final String[] roles;
+
+    private RouteAuthorizationTrie(Node root, String[] roles) {
+        this.root = root;
+        this.roles = roles;
+    }
+
+    /**
+     * Compiles the gateway's {@code pattern -> (method -> roles)} table. Every role seen in
+     * the table gets one bit; at most 31 distinct roles are supported.
+     */
+    public static RouteAuthorizationTrie compile(Map<String, Map<String, List<String>>> endpoints) {
+        List<String> roleNames = new ArrayList<>();
+        for (Map<String, List<String>> methodRoles : endpoints.values()) {
+            for (List<String> allowed : methodRoles.values()) {
+                for (String role : allowed) {
+                    if (!roleNames.contains(role)) roleNames.add(role);
+                }
+            }
+        }
+        if (roleNames.size() > 31) {
+            throw new IllegalStateException("Too many roles for route table: " + roleNames.size());
+        }
+
+        Node root = new Node();
+        for (Map.Entry<String, Map<String, List<String>>> entry : endpoints.entrySet()) {
+            Node node = root;
+            for (String segment : entry.getKey().split("/")) {
+                if (segment.isEmpty()) continue;
+                node = node.child(segment);
+            }
+            node.terminal = true;
+            for (Map.Entry<String, List<String>> methodRoles : entry.getValue().entrySet()) {
+                int methodIndex = methodIndex(methodRoles.getKey());
+                if (methodIndex < 0) continue;
+                int mask = 0;
+                for (String role : methodRoles.getValue()) mask |= 1 << roleNames.indexOf(role);
+                node.methodMasks[methodIndex] |= mask;
+            }
+        }
+        return new RouteAuthorizationTrie(root, roleNames.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the bitmask of roles allowed to call {@code method} on {@code path}, {@code 0}
+     * when a pattern matches but the method is not listed, or {@link #NO_MATCH} when the
+     * path is not protected at all.
+     */
+    public int resolve(String path, String method) {
+        int methodIndex = methodIndex(method);
+        Node node = match(root, path, 0);
+        if (node == null) return NO_MATCH;
+        return methodIndex < 0 ? 0 : node.methodMasks[methodIndex];
+    }
+
+    /** Bit assigned to {@code role}, or {@code 0} when the role never appears in the table. */
+    public int roleBit(String role) {
+        if (role == null) return 0;
+        for (int i = 0; i < roles.length; i++) {
+            if (roles[i].equals(role)) return 1 << i;
+        }
+        return 0;
+    }
+
+    public boolean isAllowed(String path, String method, String role) {
+        int allowed = resolve(path, method);
+        return allowed == NO_MATCH || (allowed & roleBit(role)) != 0;
+    }
+
+    private static Node match(Node node, String path, int from) {
+        int start = from;
+        while (start < path.length() && path.charAt(start) == '/') start++;
+        if (start >= path.length()) return node.terminal ? node : null;
+
+        int end = path.indexOf('/', start);
+        if (end < 0) end = path.length();
+        int length = end - start;
+
+        for (int i = 0; i < node.literalCount; i++) {
+            String literal = node.literals[i];
+            if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+                Node found = match(node.children[i], path, end);
+                if (found != null) return found;
+                break;
+            }
+        }
+        return node.wildcard != null ? match(node.wildcard, path, end) : null;
+    }
+
+    private static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equalsIgnoreCase(method)) return i;
+        }
+        return -1;
+    }
+
+    private static final class Node {
+        private String[] literals = new String[2];
+        private Node[] children = new Node[2];
+        private int literalCount;
+        private Node wildcard;
+        private boolean terminal;
+        private final int[] methodMasks = new int[METHODS.length];
+
+        private Node child(String segment) {
+            if (WILDCARD.equals(segment)) {
+                if (wildcard == null) wildcard = new Node();
+                return wildcard;
+            }
+            for (int i = 0; i < literalCount; i++) {
+                if (literals[i].equals(segment)) return children[i];
+            }
+            if (literalCount == literals.length) {
+                literals = Arrays.copyOf(literals, literalCount * 2);
+                children = Arrays.copyOf(children, literalCount * 2);
+            }
+            Node created = new Node();
+            literals[literalCount] = segment;
+            children[literalCount] = created;
+            literalCount++;
+            return created;
+        }
+    }
+}
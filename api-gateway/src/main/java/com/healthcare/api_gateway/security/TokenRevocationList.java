@@ -0,0 +1,114 @@
+package com.healthcare.api_gateway.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory copy of auth-service's revocation snapshot. The per-request check is a bloom filter
+ * lookup; only on a (rare) positive is the exact set consulted, so a false positive never rejects
+ * a valid token. The snapshot is swapped atomically, readers never lock.
+ * <p>
+ * Snapshots too large for one Kafka message arrive as parts ({@code partOf}, {@code part},
+ * {@code parts}, {@code data}); they are held until every part of that generation is in.
+ */
+@Component
+public class TokenRevocationList {
+
+    /** Generations of split snapshots being collected at once; older ones are dropped first. */
+    private static final int MAX_PENDING_GENERATIONS = 4;
+
+    private final ObjectMapper objectMapper;
+    private final TreeMap<Long, String[]> pendingParts = new TreeMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public TokenRevocationList(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        meterRegistry.gauge("gateway.revocation.entries", this, l -> l.snapshot.size());
+    }
+
+    /** Whether verified {@code claims} belong to a token revoked by jti or by subject. */
+    public boolean isRevoked(Claims claims) {
+        Snapshot s = snapshot;
+        if (s.bloom == null) return false;
+
+        String jti = claims.getId();
+        if (jti != null && s.bloom.mightContain("jti:" + jti) && s.tokens.containsKey(jti)) return true;
+
+        String subject = claims.getSubject();
+        if (subject != null && s.bloom.mightContain("sub:" + subject)) {
+            Long revokedAt = s.subjects.get(subject);
+            Date issuedAt = claims.getIssuedAt();
+            return revokedAt != null && (issuedAt == null || issuedAt.getTime() / 1000 < revokedAt);
+        }
+        return false;
+    }
+
+    /** Replaces the current snapshot, ignoring one older than what is already loaded. */
+    public void apply(String json) throws JsonProcessingException {
+        JsonNode root = objectMapper.readTree(json);
+        if (root.has("parts")) {
+            String assembled = collect(root);
+            if (assembled != null) apply(assembled);
+            return;
+        }
+        long generatedAt = root.path("generatedAt").asLong();
+        if (generatedAt < snapshot.generatedAt) return; // several auth instances publish; keep the newest
+
+        RevocationBloomFilter bloom = RevocationBloomFilter.fromBytes(
+                Base64.getDecoder().decode(root.path("bloom").asText()), root.path("numHashes").asInt(1));
+        snapshot = new Snapshot(generatedAt, bloom, toMap(root.path("tokens")), toMap(root.path("subjects")));
+    }
+
+    /** Stores one part; returns the whole snapshot once its last part is in, else {@code null}. */
+    private synchronized String collect(JsonNode part) {
+        long generatedAt = part.path("partOf").asLong();
+        int parts = part.path("parts").asInt();
+        int index = part.path("part").asInt(-1);
+        if (generatedAt <= snapshot.generatedAt || index < 0 || index >= parts) return null;
+
+        String[] received = pendingParts.computeIfAbsent(generatedAt, g -> new String[parts]);
+        if (received.length != parts) return null;
+        received[index] = part.path("data").asText();
+        while (pendingParts.size() > MAX_PENDING_GENERATIONS) pendingParts.pollFirstEntry();
+        for (String data : received) {
+            if (data == null) return null;
+        }
+
+        // anything older can no longer replace this one
+        pendingParts.headMap(generatedAt, true).clear();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (String data : received) bytes.writeBytes(Base64.getDecoder().decode(data));
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Long> toMap(JsonNode node) {
+        Map<String, Long> map = new HashMap<>(Math.max(16, node.size() * 2));
+        for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> e = it.next();
+            map.put(e.getKey(), e.getValue().asLong());
+        }
+        return map;
+    }
+
+    private record Snapshot(long generatedAt, RevocationBloomFilter bloom,
+                            Map<String, Long> tokens, Map<String, Long> subjects) {
+        static final Snapshot EMPTY = new Snapshot(0, null, Map.of(), Map.of());
+
+        int size() {
+            return tokens.size() + subjects.size();
+        }
+    }
+}
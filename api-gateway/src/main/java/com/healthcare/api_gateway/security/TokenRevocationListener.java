@@ -0,0 +1,34 @@
+package com.healthcare.api_gateway.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads revocation snapshots published by auth-service. The topic is compacted and read from
+ * the earliest offset, so a freshly started gateway picks up the latest snapshot immediately.
+ */
+@Component
+public class TokenRevocationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationListener.class);
+
+    private final TokenRevocationList revocationList;
+
+    public TokenRevocationListener(TokenRevocationList revocationList) {
+        this.revocationList = revocationList;
+    }
+
+    @KafkaListener(topics = "token-revocations", containerFactory = "broadcastListenerContainerFactory",
+            properties = "auto.offset.reset=earliest")
+    public void onSnapshot(@Payload String snapshot) {
+        try {
+            revocationList.apply(snapshot);
+        } catch (Exception e) {
+            // keep serving with the previous snapshot; auth-service republishes periodically
+            log.warn("Ignoring unreadable token revocation snapshot: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.healthcare.api_gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies bearer tokens and remembers the claims of tokens that already passed verification.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token (raw tokens are never held in memory)
+ * and each entry expires exactly at the token's {@code exp}, so a cache hit can never return
+ * claims for an expired token. Hit/miss counts are published as {@code cache.gets} with
+ * {@code cache=gateway.jwt.verified}; time spent verifying is {@code gateway.jwt.verify},
+ * tagged {@code result=hit|miss|invalid}.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final JwtParser parser;
+    private final Cache<String, Claims> cache;
+    private final boolean enabled;
+    private final Timer hitTimer;
+    private final Timer missTimer;
+    private final Timer invalidTimer;
+
+    public VerifiedTokenCache(@Value("${security.jwt.secret}") String secret,
+                              @Value("${security.jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${security.jwt.cache.max-size:100000}") long maxSize,
+                              MeterRegistry meterRegistry) {
+        // The parser is immutable and thread-safe, so it is built once instead of per request.
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName()))
+                .build();
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.jwt.verified");
+        this.hitTimer = verifyTimer(meterRegistry, "hit");
+        this.missTimer = verifyTimer(meterRegistry, "miss");
+        this.invalidTimer = verifyTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("gateway.jwt.verify")
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the verified claims of {@code token}.
+     *
+     * @throws JwtException when the token is malformed, expired or carries a bad signature
+     */
+    public Claims verify(String token) {
+        long start = System.nanoTime();
+        try {
+            if (!enabled) {
+                Claims claims = parser.parseClaimsJws(token).getBody();
+                missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return claims;
+            }
+
+            String key = digest(token);
+            Claims cached = cache.getIfPresent(key);
+            if (cached != null) {
+                hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return cached;
+            }
+
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (claims.getExpiration() != null) cache.put(key, claims);
+            missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        } catch (JwtException e) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private static String digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date exp = claims.getExpiration();
+            long remainingMs = exp.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.healthcare.api_gateway.support;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/** A fully buffered upstream response that can be replayed to any number of clients. */
+public record BufferedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+    /** Per-connection or per-client headers that must not be replayed. */
+    private static final List<String> UNSHAREABLE_HEADERS = List.of(
+            HttpHeaders.SET_COOKIE, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION);
+
+    public static BufferedResponse copyOf(HttpStatusCode status, HttpHeaders source, byte[] body, String... excludedHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(source);
+        UNSHAREABLE_HEADERS.forEach(headers::remove);
+        for (String name : excludedHeaders) headers.remove(name);
+        return new BufferedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body);
+    }
+
+    public Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(status);
+        response.getHeaders().putAll(headers);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+}
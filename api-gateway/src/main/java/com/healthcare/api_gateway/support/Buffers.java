@@ -0,0 +1,18 @@
+package com.healthcare.api_gateway.support;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+final class Buffers {
+
+    private Buffers() {
+    }
+
+    /** Copies the readable bytes without moving the buffer's read position. */
+    static byte[] peek(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        int position = buffer.readPosition();
+        buffer.read(bytes);
+        buffer.readPosition(position);
+        return bytes;
+    }
+}
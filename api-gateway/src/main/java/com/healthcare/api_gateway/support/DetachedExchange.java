@@ -0,0 +1,148 @@
+package com.healthcare.api_gateway.support;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A copy of a bodiless (GET/HEAD) exchange that can be sent through the remaining filter chain
+ * a second time: it has its own attributes and a {@link DetachedResponse}, so routing state and
+ * the upstream response never leak into the exchange the client is waiting on.
+ * <p>
+ * Implements {@link ServerWebExchange} directly rather than extending the decorator so that
+ * {@link #mutate()} (used by e.g. RewritePath) builds on this exchange, not on the original.
+ * <p>
+ * Send it with {@link #route}: the client's {@link NettyWriteResponseFilter} (order -1) has already
+ * run by the time a route filter forks, and it only reads the upstream connection stored on the
+ * exchange it was given, so a detached exchange has to read its own.
+ */
+public class DetachedExchange implements ServerWebExchange {
+
+    private final ServerWebExchange original;
+    private final ServerHttpRequest request;
+    private final DetachedResponse response;
+    private final Map<String, Object> attributes;
+
+    public DetachedExchange(ServerWebExchange original, int maxBodyBytes) {
+        this.original = original;
+        this.request = new ServerHttpRequestDecorator(original.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.empty();
+            }
+        };
+        this.response = new DetachedResponse(original.getResponse(), maxBodyBytes);
+        this.attributes = new ConcurrentHashMap<>(original.getAttributes());
+        this.attributes.remove(ServerWebExchangeUtils.GATEWAY_ALREADY_ROUTED_ATTR);
+        this.attributes.remove(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR);
+        this.attributes.remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        this.attributes.remove(ServerWebExchangeUtils.CLIENT_RESPONSE_HEADER_NAMES);
+        ResponseCaptureFilter.detach(this.attributes);
+    }
+
+    /**
+     * Runs the rest of {@code chain} on this exchange and buffers the upstream body into
+     * {@link #getResponse()}. {@code writeFilter} also releases the upstream connection if the
+     * call is cancelled or fails, e.g. when it loses a hedge.
+     */
+    public Mono<Void> route(GatewayFilterChain chain, NettyWriteResponseFilter writeFilter) {
+        return writeFilter.filter(this, chain);
+    }
+
+    @Override
+    public ServerHttpRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public DetachedResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Mono<WebSession> getSession() {
+        return original.getSession();
+    }
+
+    @Override
+    public <T extends Principal> Mono<T> getPrincipal() {
+        return original.getPrincipal();
+    }
+
+    @Override
+    public Mono<MultiValueMap<String, String>> getFormData() {
+        return original.getFormData();
+    }
+
+    @Override
+    public Mono<MultiValueMap<String, Part>> getMultipartData() {
+        return original.getMultipartData();
+    }
+
+    @Override
+    public LocaleContext getLocaleContext() {
+        return original.getLocaleContext();
+    }
+
+    @Override
+    public ApplicationContext getApplicationContext() {
+        return original.getApplicationContext();
+    }
+
+    @Override
+    public boolean isNotModified() {
+        return false;
+    }
+
+    @Override
+    public boolean checkNotModified(Instant lastModified) {
+        return false;
+    }
+
+    @Override
+    public boolean checkNotModified(String etag) {
+        return false;
+    }
+
+    @Override
+    public boolean checkNotModified(String etag, Instant lastModified) {
+        return false;
+    }
+
+    @Override
+    public String transformUrl(String url) {
+        return original.transformUrl(url);
+    }
+
+    @Override
+    public void addUrlTransformer(Function<String, String> transformer) {
+        original.addUrlTransformer(transformer);
+    }
+
+    @Override
+    public String getLogPrefix() {
+        return original.getLogPrefix();
+    }
+}
@@ -0,0 +1,104 @@
+package com.healthcare.api_gateway.support;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.function.Supplier;
+
+/**
+ * A response that is never sent anywhere: status, headers and body are kept in memory so a
+ * second upstream call can run next to (or after) the one the client is waiting on. Only the
+ * buffer factory is borrowed from the real response.
+ */
+public class DetachedResponse extends ServerHttpResponseDecorator {
+
+    private final int maxBytes;
+    private final HttpHeaders headers = new HttpHeaders();
+    private final MultiValueMap<String, ResponseCookie> cookies = new LinkedMultiValueMap<>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private HttpStatusCode status;
+    private boolean overflow;
+
+    public DetachedResponse(ServerHttpResponse template, int maxBytes) {
+        super(template);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public boolean setStatusCode(HttpStatusCode status) {
+        this.status = status;
+        return true;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+        return status;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public MultiValueMap<String, ResponseCookie> getCookies() {
+        return cookies;
+    }
+
+    @Override
+    public void addCookie(ResponseCookie cookie) {
+        cookies.add(cookie.getName(), cookie);
+    }
+
+    @Override
+    public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> publisher) {
+        return Flux.from(publisher)
+                .doOnNext(buffer -> {
+                    try {
+                        if (!overflow && body.size() + buffer.readableByteCount() <= maxBytes) {
+                            body.writeBytes(Buffers.peek(buffer));
+                        } else {
+                            overflow = true;
+                        }
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> publisher) {
+        return writeWith(Flux.from(publisher).flatMapSequential(p -> p));
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        return Mono.empty();
+    }
+
+    /** @return the buffered body, or {@code null} if it exceeded the size cap */
+    public byte[] getBody() {
+        return overflow ? null : body.toByteArray();
+    }
+}
@@ -0,0 +1,19 @@
+package com.healthcare.api_gateway.support;
+
+import com.healthcare.api_gateway.filter.JwtAuthenticationFilter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Identity of a read for sharing purposes: same URL, same caller role. Only use it on routes
+ * whose responses do not depend on who the caller is beyond their role.
+ */
+public record RequestKey(String path, String query, String role) {
+
+    public static RequestKey of(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        String role = exchange.getAttribute(JwtAuthenticationFilter.ROLE_ATTR);
+        String query = request.getURI().getRawQuery();
+        return new RequestKey(request.getPath().value(), query == null ? "" : query, role == null ? "" : role);
+    }
+}
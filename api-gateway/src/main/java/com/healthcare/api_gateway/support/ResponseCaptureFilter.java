@@ -0,0 +1,112 @@
+package com.healthcare.api_gateway.support;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Lets route filters keep a copy of the body the client receives. The decorator has to be put on
+ * the exchange in front of {@link NettyWriteResponseFilter}, which writes the upstream body to the
+ * response of the exchange it was handed: a decorator added by a route filter further down is
+ * never written to (the same reason {@code ModifyResponseBody} runs at this order). Route filters,
+ * which run after authentication, ask for the copy through {@link #capture}; responses nobody
+ * asked about are streamed through untouched.
+ */
+@Component
+public class ResponseCaptureFilter implements GlobalFilter, Ordered {
+
+    private static final String RESPONSE_ATTR = ResponseCaptureFilter.class.getName() + ".response";
+
+    /**
+     * Calls {@code onCaptured} exactly once: with the body once the client's response has been
+     * fully written, or with {@code null} if there is none to share (larger than {@code maxBytes},
+     * streamed, failed, or an exchange that is not written to the client, e.g. a {@link DetachedExchange}).
+     */
+    public static void capture(ServerWebExchange exchange, int maxBytes, Consumer<byte[]> onCaptured) {
+        CapturingResponse response = exchange.getAttribute(RESPONSE_ATTR);
+        if (response == null) {
+            onCaptured.accept(null);
+            return;
+        }
+        response.listeners.add(new Listener(maxBytes, onCaptured));
+    }
+
+    // a copied exchange must not register on the client's response
+    static void detach(Map<String, Object> copiedAttributes) {
+        copiedAttributes.remove(RESPONSE_ATTR);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        CapturingResponse response = new CapturingResponse(exchange.getResponse());
+        exchange.getAttributes().put(RESPONSE_ATTR, response);
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> response.finish(null)); // no-op once the body was handed over
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    private record Listener(int maxBytes, Consumer<byte[]> onCaptured) {}
+
+    private static final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private boolean overflow;
+
+        CapturingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (listeners.isEmpty()) return super.writeWith(body);
+            int maxBytes = listeners.stream().mapToInt(Listener::maxBytes).max().getAsInt();
+            Flux<? extends DataBuffer> tapped = Flux.from(body).doOnNext(buffer -> capture(buffer, maxBytes));
+            return super.writeWith(tapped).doOnSuccess(v -> finish(overflow ? null : copy.toByteArray()));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            overflow = true;
+            return super.writeAndFlushWith(body);
+        }
+
+        void finish(byte[] body) {
+            if (!finished.compareAndSet(false, true)) return;
+            for (Listener listener : listeners) {
+                listener.onCaptured().accept(body != null && body.length <= listener.maxBytes() ? body : null);
+            }
+        }
+
+        private void capture(DataBuffer buffer, int maxBytes) {
+            if (overflow) return;
+            if (copy.size() + buffer.readableByteCount() > maxBytes) {
+                overflow = true;
+                copy.reset();
+                return;
+            }
+            copy.writeBytes(Buffers.peek(buffer));
+        }
+    }
+}
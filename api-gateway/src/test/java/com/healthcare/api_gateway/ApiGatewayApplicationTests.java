@@ -3,7 +3,7 @@ package com.healthcare.api_gateway;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "security.identity.secret=test-identity-secret-0123456789abcdef")
 class ApiGatewayApplicationTests {
 
 	@Test
@@ -0,0 +1,136 @@
+package com.healthcare.api_gateway.benchmark;
+
+import com.healthcare.api_gateway.filter.JwtAuthenticationFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.api_gateway.security.IdentityHeaderSigner;
+import com.healthcare.api_gateway.security.TokenRevocationList;
+import com.healthcare.api_gateway.security.VerifiedTokenCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link JwtAuthenticationFilter#filter} for the four paths a request can
+ * take. Each invocation builds a fresh mock exchange, so compare against {@link #exchangeOnly}
+ * to get the filter's own share of time and allocation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    /** With the cache off every valid request pays for a full signature check. */
+    @Param({"true", "false"})
+    public boolean tokenCacheEnabled;
+
+    private JwtAuthenticationFilter filter;
+    private GatewayFilterChain chain;
+    private String patientToken;
+    private String doctorToken;
+    private String forgedToken;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(SECRET, tokenCacheEnabled, 100_000, registry);
+        filter = new JwtAuthenticationFilter(tokenCache, new IdentityHeaderSigner("benchmark-identity-secret-0123456789abcdef"),
+                new TokenRevocationList(new ObjectMapper(), registry), registry);
+        chain = exchange -> Mono.empty();
+
+        patientToken = token("patient@example.com", "ROLE_PATIENT", SECRET);
+        doctorToken = token("doctor@example.com", "ROLE_DOCTOR", SECRET);
+        forgedToken = token("patient@example.com", "ROLE_PATIENT", SECRET.replace('b', 'c'));
+    }
+
+    private static String token(String subject, String role, String secret) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("role", role)
+                .claim("domainId", "42")
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TimeUnit.HOURS.toMillis(1)))
+                .signWith(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName()),
+                        SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    private static ServerWebExchange get(String path, String bearer) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+        if (bearer != null) request.header(HttpHeaders.AUTHORIZATION, "Bearer " + bearer);
+        return MockServerWebExchange.from(request);
+    }
+
+    @Benchmark
+    public ServerWebExchange exchangeOnly() {
+        return get("/patients/42", patientToken);
+    }
+
+    @Benchmark
+    public ServerWebExchange publicEndpoint() {
+        ServerWebExchange exchange = get("/auth/login", null);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange validToken() {
+        ServerWebExchange exchange = get("/patients/42", patientToken);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange forbiddenRole() {
+        ServerWebExchange exchange = get("/patients/42", doctorToken);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange invalidSignature() {
+        ServerWebExchange exchange = get("/patients/42", forgedToken);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,34 @@
+package com.healthcare.api_gateway.cache;
+
+import com.healthcare.api_gateway.support.BufferedResponse;
+import com.healthcare.api_gateway.support.RequestKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayResponseCacheTest {
+
+    private final GatewayResponseCache cache = new GatewayResponseCache(1 << 20, 1 << 16, new SimpleMeterRegistry());
+    private final RequestKey key = new RequestKey("/doctors/d1", "", "ROLE_DOCTOR");
+
+    @Test
+    void responseFetchedBeforeAPurgeIsNotStored() {
+        long generation = cache.generation();
+        cache.invalidatePaths(path -> path.equals("/doctors/d1")); // Kafka purge while the miss was in flight
+        cache.put(key, response("old"), generation);
+        assertNull(cache.get(key));
+
+        cache.put(key, response("new"), cache.generation());
+        assertEquals("new", new String(cache.get(key).response.body(), StandardCharsets.UTF_8));
+    }
+
+    private static CachedResponse response(String body) {
+        return new CachedResponse(BufferedResponse.copyOf(HttpStatus.OK, new HttpHeaders(), body.getBytes(StandardCharsets.UTF_8)),
+                30_000_000_000L, 0);
+    }
+}
@@ -0,0 +1,68 @@
+package com.healthcare.api_gateway.cache;
+
+import com.healthcare.api_gateway.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** The cache filter in a real gateway chain in front of a real upstream. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "security.identity.secret=test-identity-secret-0123456789abcdef",
+        "security.jwt.secret=" + StubUpstream.JWT_SECRET,
+        "eureka.client.enabled=false",
+        "spring.cloud.gateway.server.webflux.routes[0].id=cached",
+        "spring.cloud.gateway.server.webflux.routes[0].uri=${stub.uri}",
+        "spring.cloud.gateway.server.webflux.routes[0].predicates[0]=Path=/stub/cached/**",
+        "spring.cloud.gateway.server.webflux.routes[0].filters[0]=ResponseCache=30s"
+})
+@AutoConfigureWebTestClient
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final String BODY = "{\"id\":\"d1\",\"fullName\":\"Dr. Stub\"}";
+    private static final StubUpstream upstream = new StubUpstream(BODY, call -> Duration.ZERO);
+
+    @DynamicPropertySource
+    static void upstream(DynamicPropertyRegistry registry) {
+        registry.add("stub.uri", upstream::uri);
+    }
+
+    @AfterAll
+    static void stop() {
+        upstream.close();
+    }
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private GatewayResponseCache cache;
+
+    @Test
+    void missIsStoredWithItsBodyAndServedFromCache() {
+        get("/stub/cached/a", "MISS");
+        get("/stub/cached/a", "HIT");
+        assertEquals(1, upstream.calls());
+
+        cache.invalidatePaths(path -> path.startsWith("/stub/cached/"));
+        get("/stub/cached/a", "MISS");
+        assertEquals(2, upstream.calls());
+    }
+
+    private void get(String path, String cacheStatus) {
+        client.get().uri(path)
+                .header("Authorization", StubUpstream.bearer("ROLE_DOCTOR"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER, cacheStatus)
+                .expectBody(String.class).isEqualTo(BODY);
+    }
+}
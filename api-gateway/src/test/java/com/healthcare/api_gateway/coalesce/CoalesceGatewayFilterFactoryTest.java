@@ -0,0 +1,73 @@
+package com.healthcare.api_gateway.coalesce;
+
+import com.healthcare.api_gateway.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Concurrent identical GETs through a real gateway chain share one upstream call. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "security.identity.secret=test-identity-secret-0123456789abcdef",
+        "security.jwt.secret=" + StubUpstream.JWT_SECRET,
+        "eureka.client.enabled=false",
+        "spring.cloud.gateway.server.webflux.routes[0].id=coalesced",
+        "spring.cloud.gateway.server.webflux.routes[0].uri=${stub.uri}",
+        "spring.cloud.gateway.server.webflux.routes[0].predicates[0]=Path=/stub/coalesced/**",
+        "spring.cloud.gateway.server.webflux.routes[0].filters[0]=Coalesce=true,256KB"
+})
+class CoalesceGatewayFilterFactoryTest {
+
+    private static final String BODY = "{\"id\":\"d1\",\"fullName\":\"Dr. Stub\"}";
+    private static final int CONCURRENT = 8;
+
+    // call 1 warms the chain up; the leader's call is held open long enough for everyone to join
+    private static final StubUpstream upstream =
+            new StubUpstream(BODY, call -> call == 1 ? Duration.ZERO : Duration.ofSeconds(1));
+
+    @DynamicPropertySource
+    static void upstream(DynamicPropertyRegistry registry) {
+        registry.add("stub.uri", upstream::uri);
+    }
+
+    @AfterAll
+    static void stop() {
+        upstream.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void concurrentGetsMakeOneUpstreamCall() {
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .defaultHeader("Authorization", StubUpstream.bearer("ROLE_DOCTOR"))
+                .build();
+
+        assertEquals(BODY, get(client, "/stub/coalesced/warm-up"));
+        assertEquals(1, upstream.calls());
+
+        List<String> bodies = Flux.range(0, CONCURRENT)
+                .flatMap(i -> client.get().uri("/stub/coalesced/a").retrieve().bodyToMono(String.class), CONCURRENT)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(CONCURRENT, bodies.size());
+        bodies.forEach(body -> assertEquals(BODY, body));
+        assertEquals(2, upstream.calls());
+    }
+
+    private static String get(WebClient client, String path) {
+        return client.get().uri(path).retrieve().bodyToMono(String.class).block(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,89 @@
+package com.healthcare.api_gateway.filter;
+
+import com.healthcare.api_gateway.security.RouteAuthorizationTrie;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** The gateway's real role table: who may call what, including overlapping literal/wildcard routes. */
+class GatewayRouteTableTest {
+
+    private static final RouteAuthorizationTrie TABLE = JwtAuthenticationFilter.routeTable();
+
+    @ParameterizedTest(name = "{0} {1} as {2} -> {3}")
+    @CsvSource({
+            // /patients/* vs /patients/book
+            "POST, /patients/book,                                   ROLE_PATIENT, true",
+            "POST, /patients/book,                                   ROLE_DOCTOR,  false",
+            "POST, /patients/book,                                   ROLE_ADMIN,   false",
+            "GET,  /patients/book,                                   ROLE_PATIENT, false",
+            "GET,  /patients/42,                                     ROLE_PATIENT, true",
+            "GET,  /patients/42,                                     ROLE_ADMIN,   true",
+            "GET,  /patients/42,                                     ROLE_DOCTOR,  false",
+            "PUT,  /patients/42,                                     ROLE_PATIENT, true",
+            "PUT,  /patients/42,                                     ROLE_ADMIN,   false",
+            "POST, /patients,                                        ROLE_PATIENT, true",
+            "GET,  /patients,                                        ROLE_ADMIN,   true",
+            "GET,  /patients,                                        ROLE_PATIENT, false",
+            "GET,  /patients/42/bookings,                            ROLE_PATIENT, true",
+            "POST, /patients/book/b1/cancel,                         ROLE_PATIENT, true",
+            "POST, /patients/book/b1/cancel,                         ROLE_DOCTOR,  false",
+            "POST, /patients/payments/intent,                        ROLE_PATIENT, true",
+            "GET,  /patients/doctor/d1,                              ROLE_PATIENT, true",
+            "GET,  /patients/doctor/d1/availability,                 ROLE_PATIENT, true",
+            "GET,  /patients/doctor/d1/reviews,                      ROLE_DOCTOR,  false",
+            "GET,  /bff/patients/42/dashboard,                       ROLE_PATIENT, true",
+            "GET,  /bff/patients/42/dashboard,                       ROLE_DOCTOR,  false",
+            // doctors
+            "PUT,  /doctors/d1/verify,                               ROLE_ADMIN,   true",
+            "PUT,  /doctors/d1/verify,                               ROLE_DOCTOR,  false",
+            "PUT,  /doctors/d1/activation,                           ROLE_ADMIN,   true",
+            "POST, /doctors,                                         ROLE_DOCTOR,  true",
+            "GET,  /doctors/d1,                                      ROLE_DOCTOR,  true",
+            "GET,  /doctors/d1,                                      ROLE_ADMIN,   true",
+            "GET,  /doctors/d1,                                      ROLE_PATIENT, false",
+            "PUT,  /doctors/d1/profile,                              ROLE_DOCTOR,  true",
+            "PUT,  /doctors/d1/profile,                              ROLE_PATIENT, false",
+            "POST, /doctors/d1/availability/slots,                   ROLE_DOCTOR,  true",
+            "GET,  /doctors/d1/availability/slots,                   ROLE_PATIENT, false",
+            // .../slots/block vs .../slots/*/claim
+            "PUT,  /doctors/d1/availability/slots/block,             ROLE_DOCTOR,  true",
+            "PUT,  /doctors/d1/availability/slots/block,             ROLE_PATIENT, false",
+            "POST, /doctors/d1/availability/slots/block,             ROLE_DOCTOR,  false",
+            "POST, /doctors/d1/availability/slots/s1/claim,          ROLE_DOCTOR,  true",
+            "POST, /doctors/d1/availability/slots/s1/claim,          ROLE_PATIENT, false",
+            "POST, /doctors/d1/availability/slots/block/claim,       ROLE_DOCTOR,  true",
+            "POST, /doctors/d1/availability/slots/block/claim,       ROLE_PATIENT, false",
+            "PUT,  /doctors/d1/availability/slots/s1/claim,          ROLE_DOCTOR,  false",
+            "GET,  /doctors/d1/availability/slots/lookup,            ROLE_DOCTOR,  true",
+            "GET,  /doctors/d1/availability/slots/lookup,            ROLE_PATIENT, false",
+            "GET,  /doctors/d1/appointments/upcoming,                ROLE_DOCTOR,  true",
+            "GET,  /doctors/d1/appointments/history,                 ROLE_PATIENT, false",
+            "POST, /doctors/d1/reviews/refresh-rating,               ROLE_DOCTOR,  true",
+            "POST, /doctors/d1/prescriptions,                        ROLE_DOCTOR,  true",
+            "GET,  /doctors/d1/prescriptions,                        ROLE_PATIENT, false",
+            // appointments
+            "PUT,  /appointments/a1/confirm,                         ROLE_DOCTOR,  true",
+            "PUT,  /appointments/a1/confirm,                         ROLE_PATIENT, false",
+            "PUT,  /appointments/a1/complete,                        ROLE_PATIENT, false",
+            "PUT,  /appointments/a1/reject,                          ROLE_ADMIN,   true",
+            "PUT,  /appointments/a1/reject,                          ROLE_PATIENT, false",
+            "PUT,  /appointments/a1/cancel,                          ROLE_PATIENT, true",
+            "PUT,  /appointments/a1/reschedule,                      ROLE_DOCTOR,  true",
+            "PUT,  /appointments/a1/reschedule,                      ROLE_ADMIN,   false",
+            "GET,  /appointments/doctor/d1/upcoming,                 ROLE_DOCTOR,  true",
+            "GET,  /appointments/doctor/d1/past,                     ROLE_PATIENT, false",
+            "GET,  /appointments/patient/p1,                         ROLE_PATIENT, true",
+            "GET,  /appointments/patient/p1,                         ROLE_DOCTOR,  false",
+            "GET,  /appointments/patient/p1/past,                    ROLE_PATIENT, true",
+            // path normalisation must not open a protected route
+            "PUT,  //doctors//d1/verify/,                            ROLE_DOCTOR,  false",
+            "PUT,  //doctors//d1/verify/,                            ROLE_ADMIN,   true",
+            // not in the table: left to the services, as before
+            "GET,  /admins/dashboard,                                ROLE_PATIENT, true",
+    })
+    void rolesPerRoute(String method, String path, String role, boolean allowed) {
+        assertEquals(allowed, TABLE.isAllowed(path, method, role));
+    }
+}
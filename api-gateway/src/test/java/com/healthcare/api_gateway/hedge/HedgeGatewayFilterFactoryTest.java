@@ -0,0 +1,75 @@
+package com.healthcare.api_gateway.hedge;
+
+import com.healthcare.api_gateway.support.StubUpstream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Hedged reads through a real gateway chain: the winner's body reaches the client. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "security.identity.secret=test-identity-secret-0123456789abcdef",
+        "security.jwt.secret=" + StubUpstream.JWT_SECRET,
+        "eureka.client.enabled=false",
+        "spring.cloud.gateway.server.webflux.routes[0].id=hedged",
+        "spring.cloud.gateway.server.webflux.routes[0].uri=${stub.uri}",
+        "spring.cloud.gateway.server.webflux.routes[0].predicates[0]=Path=/stub/hedged/**",
+        "spring.cloud.gateway.server.webflux.routes[0].filters[0]=Hedge=0.5,100"
+})
+class HedgeGatewayFilterFactoryTest {
+
+    private static final String BODY = "{\"id\":\"d1\",\"fullName\":\"Dr. Stub\"}";
+    private static final Duration SLOW = Duration.ofSeconds(3);
+
+    private static final AtomicInteger slowCall = new AtomicInteger(-1);
+    private static final StubUpstream upstream =
+            new StubUpstream(BODY, call -> call == slowCall.get() ? SLOW : Duration.ZERO);
+
+    @DynamicPropertySource
+    static void upstream(DynamicPropertyRegistry registry) {
+        registry.add("stub.uri", upstream::uri);
+    }
+
+    @AfterAll
+    static void stop() {
+        upstream.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void slowPrimaryIsAnsweredByTheHedgeWithItsBody() {
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .defaultHeader("Authorization", StubUpstream.bearer("ROLE_DOCTOR"))
+                .build();
+
+        // enough samples for a latency percentile; every response must carry the body, hedged or not
+        for (int i = 0; i < 40; i++) {
+            assertEquals(BODY, get(client));
+        }
+
+        int before = upstream.calls();
+        slowCall.set(before + 1);
+        long start = System.nanoTime();
+        assertEquals(BODY, get(client));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(elapsed.compareTo(SLOW) < 0, "answered by the hedge, took " + elapsed);
+        assertEquals(before + 2, upstream.calls());
+    }
+
+    private static String get(WebClient client) {
+        return client.get().uri("/stub/hedged/a").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,45 @@
+package com.healthcare.api_gateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Wire-compatibility vectors. auth-service has the same test with the same constants: if either
+ * copy of RevocationBloomFilter changes its sizing, hashing or byte layout, one of them fails.
+ */
+class RevocationBloomFilterTest {
+
+    private static final List<String> ENTRIES = List.of(
+            "jti:3f2a9c1e-7b4d-4e8a-9c1f-2d6b8e0a4f13",
+            "sub:patient@example.com",
+            "sub:dr.müller@example.com");
+    private static final int NUM_HASHES = 11;
+    private static final String BITS = "ABIB/8IAkAAMIQyAAkIQpA==";
+
+    @Test
+    void publishesTheSharedBitLayout() {
+        RevocationBloomFilter bloom = RevocationBloomFilter.create(8, 0.01);
+        ENTRIES.forEach(bloom::put);
+
+        assertEquals(NUM_HASHES, bloom.numHashes());
+        assertEquals(BITS, Base64.getEncoder().encodeToString(bloom.toBytes()));
+    }
+
+    @Test
+    void readsTheSharedBitLayout() {
+        byte[] bytes = Base64.getDecoder().decode(BITS);
+        RevocationBloomFilter bloom = RevocationBloomFilter.fromBytes(bytes, NUM_HASHES);
+
+        ENTRIES.forEach(entry -> assertTrue(bloom.mightContain(entry), entry));
+        assertFalse(bloom.mightContain("sub:other@example.com"));
+        assertFalse(bloom.mightContain("jti:other"));
+        assertArrayEquals(bytes, bloom.toBytes());
+    }
+}
@@ -0,0 +1,62 @@
+package com.healthcare.api_gateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteAuthorizationTrieTest {
+
+    private final RouteAuthorizationTrie trie = RouteAuthorizationTrie.compile(Map.of(
+            "/items/*", Map.of("GET", List.of("ROLE_A", "ROLE_B")),
+            "/items/new", Map.of("POST", List.of("ROLE_A")),
+            "/items/*/parts/*/detach", Map.of("POST", List.of("ROLE_B")),
+            "/items/*/parts/lock", Map.of("PUT", List.of("ROLE_A"))
+    ));
+
+    @Test
+    void literalSegmentWinsOverWildcard() {
+        assertTrue(trie.isAllowed("/items/new", "POST", "ROLE_A"));
+        // "/items/new" is its own route, so GET is not inherited from "/items/*"
+        assertEquals(0, trie.resolve("/items/new", "GET"));
+        assertFalse(trie.isAllowed("/items/new", "GET", "ROLE_A"));
+        assertTrue(trie.isAllowed("/items/42", "GET", "ROLE_B"));
+    }
+
+    @Test
+    void backtracksToWildcardWhenLiteralBranchDeadEnds() {
+        // "lock" matches the literal child first, which has no "detach" below it
+        assertTrue(trie.isAllowed("/items/1/parts/lock/detach", "POST", "ROLE_B"));
+        assertFalse(trie.isAllowed("/items/1/parts/lock/detach", "POST", "ROLE_A"));
+        assertTrue(trie.isAllowed("/items/1/parts/lock", "PUT", "ROLE_A"));
+        assertFalse(trie.isAllowed("/items/1/parts/lock", "PUT", "ROLE_B"));
+    }
+
+    @Test
+    void wildcardMatchesExactlyOneSegment() {
+        assertEquals(RouteAuthorizationTrie.NO_MATCH, trie.resolve("/items", "GET"));
+        assertEquals(RouteAuthorizationTrie.NO_MATCH, trie.resolve("/items/1/2", "GET"));
+    }
+
+    @Test
+    void repeatedAndTrailingSlashesAreIgnored() {
+        assertFalse(trie.isAllowed("//items//new/", "POST", "ROLE_B"));
+        assertTrue(trie.isAllowed("//items//new/", "POST", "ROLE_A"));
+    }
+
+    @Test
+    void unlistedMethodAndUnknownRoleAreDenied() {
+        assertEquals(0, trie.resolve("/items/1", "DELETE"));
+        assertEquals(0, trie.resolve("/items/1", "BREW"));
+        assertFalse(trie.isAllowed("/items/1", "GET", "ROLE_UNKNOWN"));
+        assertFalse(trie.isAllowed("/items/1", "GET", null));
+    }
+
+    @Test
+    void unprotectedPathIsAllowed() {
+        assertEquals(RouteAuthorizationTrie.NO_MATCH, trie.resolve("/other/1", "GET"));
+        assertTrue(trie.isAllowed("/other/1", "GET", null));
+    }
+}
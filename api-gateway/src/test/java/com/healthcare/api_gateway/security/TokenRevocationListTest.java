@@ -0,0 +1,73 @@
+package com.healthcare.api_gateway.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Snapshots split into parts by auth-service are applied once every part is in. */
+class TokenRevocationListTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void appliesSplitSnapshotOnlyWhenComplete() throws Exception {
+        TokenRevocationList list = new TokenRevocationList(objectMapper, new SimpleMeterRegistry());
+        byte[] snapshot = snapshot(1_000L, "revoked-jti").getBytes(StandardCharsets.UTF_8);
+        int third = snapshot.length / 3 + 1;
+
+        list.apply(part(1_000L, 2, 3, Arrays.copyOfRange(snapshot, 2 * third, snapshot.length)));
+        list.apply(part(1_000L, 0, 3, Arrays.copyOfRange(snapshot, 0, third)));
+        assertFalse(list.isRevoked(claims("revoked-jti")));
+
+        list.apply(part(1_000L, 1, 3, Arrays.copyOfRange(snapshot, third, 2 * third)));
+        assertTrue(list.isRevoked(claims("revoked-jti")));
+        assertFalse(list.isRevoked(claims("other-jti")));
+    }
+
+    @Test
+    void ignoresPartsOfAnOlderGeneration() throws Exception {
+        TokenRevocationList list = new TokenRevocationList(objectMapper, new SimpleMeterRegistry());
+        list.apply(snapshot(2_000L, "newer-jti"));
+
+        byte[] older = snapshot(1_000L, "older-jti").getBytes(StandardCharsets.UTF_8);
+        list.apply(part(1_000L, 0, 1, older));
+
+        assertTrue(list.isRevoked(claims("newer-jti")));
+        assertFalse(list.isRevoked(claims("older-jti")));
+    }
+
+    private String snapshot(long generatedAt, String jti) throws Exception {
+        RevocationBloomFilter bloom = RevocationBloomFilter.create(1, 0.001);
+        bloom.put("jti:" + jti);
+        ObjectNode root = objectMapper.createObjectNode();
+        root.putObject("tokens").put(jti, System.currentTimeMillis() / 1000 + 600);
+        root.putObject("subjects");
+        root.put("generatedAt", generatedAt);
+        root.put("numHashes", bloom.numHashes());
+        root.put("bloom", Base64.getEncoder().encodeToString(bloom.toBytes()));
+        return objectMapper.writeValueAsString(root);
+    }
+
+    private String part(long partOf, int part, int parts, byte[] data) throws Exception {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("partOf", partOf);
+        node.put("part", part);
+        node.put("parts", parts);
+        node.put("data", Base64.getEncoder().encodeToString(data));
+        return objectMapper.writeValueAsString(node);
+    }
+
+    private static Claims claims(String jti) {
+        return Jwts.claims().setId(jti).setSubject("patient@example.com");
+    }
+}
@@ -0,0 +1,66 @@
+package com.healthcare.api_gateway.support;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * A real HTTP upstream for gateway tests: every request gets {@code body} as JSON after the delay
+ * chosen for its call number (1-based), and calls are counted.
+ */
+public final class StubUpstream implements AutoCloseable {
+
+    /** Tests set {@code security.jwt.secret} to this so {@link #bearer} tokens verify (HS512 needs 64+ bytes). */
+    public static final String JWT_SECRET = "gateway-test-jwt-secret-0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final DisposableServer server;
+
+    public StubUpstream(String body, IntFunction<Duration> delayForCall) {
+        this.server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .handle((request, response) -> {
+                    int call = calls.incrementAndGet();
+                    return Mono.delay(delayForCall.apply(call))
+                            .then(response.header("Content-Type", "application/json")
+                                    .sendString(Mono.just(body))
+                                    .then());
+                })
+                .bindNow();
+    }
+
+    public String uri() {
+        return "http://localhost:" + server.port();
+    }
+
+    public int calls() {
+        return calls.get();
+    }
+
+    /** A bearer token the gateway accepts; stub routes are not in the role table, so any role passes. */
+    public static String bearer(String role) {
+        String token = Jwts.builder()
+                .setSubject("gateway-test@example.com")
+                .claim("role", role)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 600_000))
+                .signWith(new SecretKeySpec(JWT_SECRET.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName()))
+                .compact();
+        return "Bearer " + token;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
@@ -1,7 +1,9 @@
 package com.healthcare.appointment_service.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +11,9 @@ import org.springframework.context.annotation.*;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,18 +25,39 @@ public class KafkaConfig {
     @Value("${kafka.bootstrap-servers}")
     private String bootstrap;
 
+    @Value("${kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ProducerFactory<String, String> producerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        return new DefaultKafkaProducerFactory<>(props);
+        // shared producer profile (appointment/patient/doctor-service, keep in sync): batched,
+        // compressed and idempotent, so keyed events keep their per-partition order across retries
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        DefaultKafkaProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(props);
+        // kafka.producer.* client metrics: batch size, compression rate, request latency, ...
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, String> kafkaTemplate(ProducerFactory<String, String> producerFactory) {
+        // send latency is recorded by the template as spring.kafka.template
+        return new KafkaTemplate<>(producerFactory);
     }
 
     @Bean
@@ -51,4 +77,32 @@ public class KafkaConfig {
         factory.setConsumerFactory(consumerFactory());
         return factory;
     }
+
+    /** Failed book requests go to {@code <topic>.DLT}, partitioned by their original key. */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<String, String> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(record.topic() + ".DLT", -1));
+    }
+
+    /**
+     * Batch listener for appointment-book-request. One container thread per partition up to
+     * {@code concurrency}; within a batch {@link com.healthcare.appointment_service.service.BookingEventListener}
+     * fans out per doctor.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> bookRequestListenerContainerFactory(
+            DeadLetterPublishingRecoverer deadLetterRecoverer,
+            @Value("${kafka.book-request.concurrency:3}") int concurrency,
+            @Value("${kafka.book-request.max-poll-records:100}") int maxPollRecords) {
+        Map<String, Object> props = new HashMap<>(consumerFactory().getConfigurationProperties());
+        props.put(org.apache.kafka.clients.consumer.ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        // the listener dead-letters failed records itself; this only covers a batch that throws
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterRecoverer, new FixedBackOff(1000L, 2)));
+        return factory;
+    }
 }
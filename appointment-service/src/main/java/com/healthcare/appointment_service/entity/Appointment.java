@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "appointments", indexes = {
         @Index(name="idx_appt_doctor_time", columnList="doctorId,startTime"),
-        @Index(name="idx_appt_patient", columnList="patientId")
+        @Index(name="idx_appt_patient", columnList="patientId"),
+        @Index(name="idx_appt_doctor_end", columnList="doctorId,endTime")
 })
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Appointment {
@@ -34,6 +35,10 @@ public class Appointment {
     @Column(nullable = false)
     private Integer durationMinutes;
 
+    // startTime + durationMinutes, stored so overlap checks are a plain indexed range query
+    @Column(nullable = false)
+    private LocalDateTime endTime;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private AppointmentStatus status;
@@ -50,4 +55,10 @@ public class Appointment {
 
     @Column(nullable = false)
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void syncEndTime() {
+        if (startTime != null && durationMinutes != null) endTime = startTime.plusMinutes(durationMinutes);
+    }
 }
@@ -0,0 +1,37 @@
+package com.healthcare.appointment_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Kafka event written in the same transaction as the appointment change it describes and
+ * sent later by {@link com.healthcare.appointment_service.service.OutboxRelay}. A rolled-back
+ * change therefore never publishes, and a broker outage only delays events.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_unpublished", columnList = "publishedAt,id")
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxEvent {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    @Column(length = 64)
+    private String eventKey; // partition key; events of one appointment share it
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime publishedAt; // null until the broker acknowledged it
+}
@@ -0,0 +1,30 @@
+package com.healthcare.appointment_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Names the one instance allowed to run {@link com.healthcare.appointment_service.service.OutboxRelay}
+ * until {@code leaseUntil}. A single relay sends each key's events in outbox order; instances
+ * sending batches side by side could not.
+ */
+@Entity
+@Table(name = "outbox_relay_lease")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxRelayLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, length = 64)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime leaseUntil;
+
+    @Version
+    private Long version; // null on a new row, so save() inserts instead of overwriting a concurrent insert
+}
@@ -0,0 +1,7 @@
+package com.healthcare.appointment_service.exception;
+
+/** A downstream service failed or timed out; the same request may succeed when retried. */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message){ super(message); }
+    public ServiceUnavailableException(String message, Throwable cause){ super(message, cause); }
+}
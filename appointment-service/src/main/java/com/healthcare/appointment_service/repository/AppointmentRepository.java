@@ -27,5 +27,12 @@ public interface AppointmentRepository extends JpaRepository<Appointment, String
 
     Optional<Appointment> findFirstByDoctorIdAndStartTimeAndStatusIn(String doctorId, LocalDateTime start, List<AppointmentStatus> statuses);
 
+    // overlap backstop for DoctorScheduleIndex; walks idx_appt_doctor_end from :start, so past bookings are skipped
+    @Query("select count(a) > 0 from Appointment a where a.doctorId = :doctorId and a.id <> :excludeId " +
+            "and a.status in :statuses and a.endTime > :start and a.startTime < :end")
+    boolean existsOverlapping(String doctorId, String excludeId, List<AppointmentStatus> statuses, LocalDateTime start, LocalDateTime end);
+
+    List<Appointment> findByDoctorIdAndStatusInAndEndTimeAfter(String doctorId, List<AppointmentStatus> statuses, LocalDateTime after);
+
     List<Appointment> findByStartTimeBetween(LocalDateTime from, LocalDateTime to);
 }
@@ -0,0 +1,28 @@
+package com.healthcare.appointment_service.repository;
+
+import com.healthcare.appointment_service.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // no row locks: only the instance holding the relay lease reads this
+    @Query("select e from OutboxEvent e where e.publishedAt is null order by e.id")
+    List<OutboxEvent> findUnpublished(Pageable page);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(List<Long> ids, LocalDateTime publishedAt);
+
+    @Query("select e.id from OutboxEvent e where e.publishedAt < :before order by e.id")
+    List<Long> findPublishedBefore(LocalDateTime before, Pageable page);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteByIdIn(List<Long> ids);
+}
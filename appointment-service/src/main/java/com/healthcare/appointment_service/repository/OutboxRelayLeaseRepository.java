@@ -0,0 +1,23 @@
+package com.healthcare.appointment_service.repository;
+
+import com.healthcare.appointment_service.entity.OutboxRelayLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OutboxRelayLeaseRepository extends JpaRepository<OutboxRelayLease, String> {
+
+    // renews our own lease, or takes over one that has run out
+    @Modifying
+    @Query("update OutboxRelayLease l set l.owner = :owner, l.leaseUntil = :until " +
+            "where l.name = :name and (l.owner = :owner or l.leaseUntil < :now)")
+    int acquire(String name, String owner, LocalDateTime now, LocalDateTime until);
+
+    @Modifying
+    @Query("update OutboxRelayLease l set l.leaseUntil = :now where l.name = :name and l.owner = :owner")
+    int release(String name, String owner, LocalDateTime now);
+}
@@ -6,10 +6,11 @@ import com.healthcare.appointment_service.dto.AppointmentDtos.*;
 import com.healthcare.appointment_service.entity.Appointment;
 import com.healthcare.appointment_service.exception.BadRequestException;
 import com.healthcare.appointment_service.exception.NotFoundException;
+import com.healthcare.appointment_service.entity.OutboxEvent;
 import com.healthcare.appointment_service.repository.AppointmentRepository;
+import com.healthcare.appointment_service.repository.OutboxEventRepository;
 import com.healthcare.appointment_service.util.Ids;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,7 +25,8 @@ public class AppointmentDomainService {
 
     private final AppointmentRepository repo;
     private final ExternalServiceClient external;
-    private final KafkaTemplate<String,String> kafka;
+    private final DoctorScheduleIndex scheduleIndex;
+    private final OutboxEventRepository outbox;
     private final ObjectMapper mapper = new ObjectMapper();
 
     private final String topicConfirm;
@@ -34,14 +36,16 @@ public class AppointmentDomainService {
 
     public AppointmentDomainService(AppointmentRepository repo,
                                     ExternalServiceClient external,
-                                    KafkaTemplate<String, String> kafka,
+                                    DoctorScheduleIndex scheduleIndex,
+                                    OutboxEventRepository outbox,
                                     @Value("${kafka.topics.confirmed}") String topicConfirm,
                                     @Value("${kafka.topics.rejected}") String topicReject,
                                     @Value("${kafka.topics.cancelled}") String topicCancel,
                                     @Value("${kafka.topics.notify}") String topicNotify) {
         this.repo = repo;
         this.external = external;
-        this.kafka = kafka;
+        this.scheduleIndex = scheduleIndex;
+        this.outbox = outbox;
         this.topicConfirm = topicConfirm;
         this.topicReject = topicReject;
         this.topicCancel = topicCancel;
@@ -55,23 +59,32 @@ public class AppointmentDomainService {
         // fetch doctor & patient in parallel (CompletableFuture)
         CompletableFuture<Map<String,Object>> fDoctor = external.getDoctorProfileAsync(req.doctorId());
         CompletableFuture<Map<String,Object>> fPatient = external.getPatientAsync(req.patientId());
-        CompletableFuture.allOf(fDoctor, fPatient).join();
-        Map<String,Object> doctor = fDoctor.join();
-        Map<String,Object> patient = fPatient.join();
+        return book(req, ExternalServiceClient.await(fDoctor), ExternalServiceClient.await(fPatient));
+    }
+
+    /** Books with doctor/patient profiles the caller already fetched (shared across a batch). */
+    @Transactional
+    public Appointment book(BookAppointmentRequest req, Map<String,Object> doctor, Map<String,Object> patient){
+        if (req.durationMinutes() <= 0) throw new BadRequestException("durationMinutes must be > 0");
         if (doctor == null || doctor.isEmpty()) throw new BadRequestException("Invalid doctorId");
         if (patient == null || patient.isEmpty()) throw new BadRequestException("Invalid patientId");
 
-        // validate and (optionally) lock the slot in doctor-service
-        boolean ok = external.validateAndLockSlot(req.doctorId(), req.slotId(), req.startTime(), req.durationMinutes());
-        if (!ok) throw new BadRequestException("Requested slot is not available");
+        // claim the slot in doctor-service (atomic; fails if another booking got it first).
+        // The appointment id is the claim token, so a retried claim is recognised as ours.
+        String id = Ids.newId();
+        String slotId = external.claimSlot(req.doctorId(), req.slotId(), req.startTime(), req.durationMinutes(), id);
+        if (slotId == null) throw new BadRequestException("Requested slot is not available");
 
-        // Prevent double booking at same doctor+time
-        repo.findFirstByDoctorIdAndStartTimeAndStatusIn(req.doctorId(), req.startTime(),
-                        List.of(AppointmentStatus.PENDING, AppointmentStatus.CONFIRMED))
-                .ifPresent(a -> { throw new BadRequestException("Slot already booked"); });
+        // Prevent double booking: any overlap with the doctor's PENDING/CONFIRMED appointments
+        try {
+            ensureFree(req.doctorId(), id, req.startTime(), req.startTime().plusMinutes(req.durationMinutes()));
+        } catch (RuntimeException e) {
+            external.releaseSlot(req.doctorId(), slotId, id);
+            throw e;
+        }
 
         Appointment a = Appointment.builder()
-                .id(Ids.newId())
+                .id(id)
                 .doctorId(req.doctorId())
                 .patientId(req.patientId())
                 .patientPhone(String.valueOf(patient.get("phone")))
@@ -79,7 +92,7 @@ public class AppointmentDomainService {
                 .durationMinutes(req.durationMinutes())
                 .status(AppointmentStatus.PENDING)
                 .paymentStatus(PaymentStatus.NA)
-                .slotId(req.slotId())
+                .slotId(slotId)
                 .notes(req.notes())
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
@@ -106,12 +119,12 @@ public class AppointmentDomainService {
         String startTime = a.getStartTime().format(formatter);
 
         CompletableFuture<Map<String,Object>> fDoctor = external.getDoctorProfileAsync(a.getDoctorId());
-        Map<String,Object> doctor = fDoctor.join();
+        Map<String,Object> doctor = ExternalServiceClient.await(fDoctor);
 //        System.out.println("FROM AppointmentDomainService~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~"+doctor);
 
         Map<String, Object> payload = Map.of("appointmentId", a.getId(), "doctorId", a.getDoctorId(), "patientId", a.getPatientId(), "patientPhone", a.getPatientPhone(), "startTime", startTime, "fullName", doctor.get("fullName"));
         //System.out.println("~~~~~~~~~~~~~~~~~~~Publishing to Kafka: " + new ObjectMapper().writeValueAsString(payload));
-        publish(topicConfirm, payload);
+        publish(topicConfirm, a.getId(), payload);
         sendNotify("APPOINTMENT_CONFIRMED", a);
         return a;
     }
@@ -123,8 +136,9 @@ public class AppointmentDomainService {
         a.setStatus(AppointmentStatus.REJECTED);
         a.setUpdatedAt(LocalDateTime.now());
         repo.save(a);
+        scheduleIndex.release(a.getDoctorId(), a.getId());
 
-        publish(topicReject, Map.of("appointmentId", a.getId(), "reason", reason, "patientPhone",a.getPatientPhone()));
+        publish(topicReject, a.getId(), Map.of("appointmentId", a.getId(), "reason", reason, "patientPhone",a.getPatientPhone()));
         // unlock previously locked slot if we have slotId
         external.unlockSlotIfNeeded(a.getDoctorId(), a.getSlotId());
         sendNotify("APPOINTMENT_REJECTED", a);
@@ -139,8 +153,9 @@ public class AppointmentDomainService {
         a.setStatus(AppointmentStatus.CANCELLED);
         a.setUpdatedAt(LocalDateTime.now());
         repo.save(a);
+        scheduleIndex.release(a.getDoctorId(), a.getId());
 
-        publish(topicCancel, Map.of("appointmentId", a.getId(), "byDoctor", byDoctor, "patientPhone",a.getPatientPhone()));
+        publish(topicCancel, a.getId(), Map.of("appointmentId", a.getId(), "byDoctor", byDoctor, "patientPhone",a.getPatientPhone()));
         external.unlockSlotIfNeeded(a.getDoctorId(), a.getSlotId());
         sendNotify("APPOINTMENT_CANCELLED", a);
         return a;
@@ -153,15 +168,22 @@ public class AppointmentDomainService {
             throw new BadRequestException("Only PENDING/CONFIRMED can be rescheduled");
 
         // Validate new slot
-        boolean ok = external.validateAndLockSlot(a.getDoctorId(), req.newSlotId(), req.newStartTime(), req.newDurationMinutes());
-        if (!ok) throw new BadRequestException("New slot not available");
-
-        // Unlock old slot if we had one
-        external.unlockSlotIfNeeded(a.getDoctorId(), a.getSlotId());
+        String newSlotId = external.claimSlot(a.getDoctorId(), req.newSlotId(), req.newStartTime(), req.newDurationMinutes(), a.getId());
+        if (newSlotId == null) throw new BadRequestException("New slot not available");
+        boolean sameSlot = newSlotId.equals(a.getSlotId());
+        try {
+            ensureFree(a.getDoctorId(), a.getId(), req.newStartTime(), req.newStartTime().plusMinutes(req.newDurationMinutes()));
+        } catch (RuntimeException e) {
+            if (!sameSlot) external.releaseSlot(a.getDoctorId(), newSlotId, a.getId());
+            throw e;
+        }
+
+        // Unlock old slot if we had one (a claim of the slot we already hold succeeds via the token)
+        if (!sameSlot) external.unlockSlotIfNeeded(a.getDoctorId(), a.getSlotId());
 
         a.setStartTime(req.newStartTime());
         a.setDurationMinutes(req.newDurationMinutes());
-        a.setSlotId(req.newSlotId());
+        a.setSlotId(newSlotId);
         a.setUpdatedAt(LocalDateTime.now());
         repo.save(a);
 
@@ -176,11 +198,30 @@ public class AppointmentDomainService {
         a.setStatus(AppointmentStatus.COMPLETED);
         a.setUpdatedAt(LocalDateTime.now());
         repo.save(a);
+        scheduleIndex.release(a.getDoctorId(), a.getId());
 
         sendNotify("APPOINTMENT_COMPLETED", a);
         return a;
     }
 
+    // Both checks always run; the index saves no query. The range query alone is check-then-insert, so two
+    // overlapping bookings on this instance could both pass it before either commits: the reservation,
+    // taken under the doctor's lock and held until commit or rollback, is what stops that. The index only
+    // knows this instance's bookings, so the range query is what catches the ones made through others.
+    private void ensureFree(String doctorId, String appointmentId, LocalDateTime start, LocalDateTime end){
+        if (scheduleIndex.reserve(doctorId, appointmentId, start, end) != null) {
+            if (repo.existsOverlapping(doctorId, appointmentId, DoctorScheduleIndex.ACTIVE, start, end))
+                throw new BadRequestException("Slot already booked");
+            // stale entry: the other appointment was moved or cancelled through another instance
+            scheduleIndex.evict(doctorId);
+            if (scheduleIndex.reserve(doctorId, appointmentId, start, end) != null)
+                throw new BadRequestException("Slot already booked");
+        } else if (repo.existsOverlapping(doctorId, appointmentId, DoctorScheduleIndex.ACTIVE, start, end)) {
+            scheduleIndex.evict(doctorId);
+            throw new BadRequestException("Slot already booked");
+        }
+    }
+
     public Appointment get(String id){
         return repo.findById(id).orElseThrow(() -> new NotFoundException("Appointment not found"));
     }
@@ -204,13 +245,22 @@ public class AppointmentDomainService {
         return repo.findByPatientIdOrderByStartTimeDesc(patientId);
     }
 
-    private void publish(String topic, Map<String,Object> payload){
-        try { kafka.send(topic, mapper.writeValueAsString(payload)); }
-        catch (Exception ignored) { }
+    // Written to the outbox in the caller's transaction; OutboxRelay sends it after commit.
+    // Keyed by appointment id so all events of one appointment stay in order.
+    private void publish(String topic, String key, Map<String,Object> payload){
+        String json;
+        try { json = mapper.writeValueAsString(payload); }
+        catch (JsonProcessingException e) { throw new IllegalStateException("Cannot serialize event for " + topic, e); }
+        outbox.save(OutboxEvent.builder()
+                .topic(topic)
+                .eventKey(key)
+                .payload(json)
+                .createdAt(LocalDateTime.now())
+                .build());
     }
 
     private void sendNotify(String type, Appointment a){
-        publish(topicNotify, Map.of(
+        publish(topicNotify, a.getId(), Map.of(
                 "type", type,
                 "appointmentId", a.getId(),
                 "doctorId", a.getDoctorId(),
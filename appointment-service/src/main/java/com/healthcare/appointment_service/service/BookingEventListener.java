@@ -2,44 +2,232 @@ package com.healthcare.appointment_service.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.healthcare.appointment_service.dto.AppointmentDtos.BookAppointmentRequest;
-import com.healthcare.appointment_service.entity.Appointment;
+import com.healthcare.appointment_service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
+/**
+ * Consumes appointment-book-request in batches. Records are grouped by doctor: groups run in
+ * parallel on a worker pool while one doctor's requests are booked one after another in offset
+ * order (requests are keyed by doctorId, so a doctor never spans two consumers). Doctor and
+ * patient profiles are fetched once per batch. A request that cannot be booked is sent to
+ * {@code appointment-book-request.DLT} with the failure in its headers.
+ * <p>
+ * Every record is handled on its own, so one failure never fails the batch (which would re-deliver
+ * records already booked). A {@link ServiceUnavailableException} (lookup or slot claim timed out or
+ * got a 5xx) is retried for that record with backoff; if the dependency is still down the record is
+ * put back on the topic under its key instead of being dead-lettered, and only dead-lettered once
+ * it has been put back {@code max-requeues} times. After one record has given up, the rest of the
+ * batch is put back without waiting, so an outage cannot hold the consumer past its poll interval.
+ */
 @Component
 public class BookingEventListener {
 
+    private static final Logger log = LoggerFactory.getLogger(BookingEventListener.class);
+
+    private record Pending(ConsumerRecord<String, String> record, BookAppointmentRequest req) {}
+
     private final AppointmentDomainService service;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ExternalServiceClient external;
+    private static final String REQUEUES_HEADER = "book-request-requeues";
 
-    @Value("${kafka.topics.bookRequest}")
-    private String topicBook;
+    private final DeadLetterPublishingRecoverer deadLetters;
+    private final KafkaTemplate<String, String> kafka;
+    private final ThreadPoolExecutor workers;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final int retryAttempts;
+    private final long retryBackoffMs;
+    private final int maxRequeues;
+    private final Counter booked;
+    private final Counter retried;
+    private final Counter requeued;
+    private final Counter deadLettered;
 
-    public BookingEventListener(AppointmentDomainService service) {
+    public BookingEventListener(AppointmentDomainService service,
+                                ExternalServiceClient external,
+                                DeadLetterPublishingRecoverer deadLetters,
+                                KafkaTemplate<String, String> kafka,
+                                MeterRegistry meterRegistry,
+                                @Value("${kafka.book-request.workers:8}") int workers,
+                                @Value("${kafka.book-request.retry.attempts:3}") int retryAttempts,
+                                @Value("${kafka.book-request.retry.backoff-ms:500}") long retryBackoffMs,
+                                @Value("${kafka.book-request.retry.max-requeues:20}") int maxRequeues) {
         this.service = service;
+        this.external = external;
+        this.deadLetters = deadLetters;
+        this.kafka = kafka;
+        this.retryAttempts = Math.max(1, retryAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRequeues = maxRequeues;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "book-request-worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.booked = meterRegistry.counter("appointment.book_requests", "outcome", "booked");
+        this.retried = meterRegistry.counter("appointment.book_requests", "outcome", "retried");
+        this.requeued = meterRegistry.counter("appointment.book_requests", "outcome", "requeued");
+        this.deadLettered = meterRegistry.counter("appointment.book_requests", "outcome", "dead_lettered");
+    }
+
+    @KafkaListener(topics = "${kafka.topics.bookRequest}", groupId = "appointment-service",
+            containerFactory = "bookRequestListenerContainerFactory")
+    public void onBookRequests(List<ConsumerRecord<String, String>> records) {
+        Map<String, List<Pending>> byDoctor = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                BookAppointmentRequest req = parse(record.value());
+                byDoctor.computeIfAbsent(req.doctorId(), k -> new ArrayList<>()).add(new Pending(record, req));
+            } catch (Exception e) {
+                deadLetter(record, e);
+            }
+        }
+        if (byDoctor.isEmpty()) return;
+
+        // one lookup per distinct doctor and patient in the batch, all in flight together
+        Map<String, CompletableFuture<Map<String, Object>>> doctors = new ConcurrentHashMap<>();
+        Map<Long, CompletableFuture<Map<String, Object>>> patients = new ConcurrentHashMap<>();
+        for (List<Pending> group : byDoctor.values()) {
+            for (Pending p : group) {
+                doctors.computeIfAbsent(p.req().doctorId(), external::getDoctorProfileAsync);
+                patients.computeIfAbsent(p.req().patientId(), external::getPatientAsync);
+            }
+        }
+
+        AtomicBoolean unavailable = new AtomicBoolean();
+        List<CompletableFuture<Void>> groups = new ArrayList<>(byDoctor.size());
+        for (List<Pending> group : byDoctor.values()) {
+            groups.add(CompletableFuture.runAsync(() -> {
+                for (Pending p : group) {
+                    book(p, doctors, patients, unavailable);
+                }
+            }, workers));
+        }
+        // offsets are committed once the listener returns, so wait for every group
+        CompletableFuture.allOf(groups.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void book(Pending p, Map<String, CompletableFuture<Map<String, Object>>> doctors,
+                      Map<Long, CompletableFuture<Map<String, Object>>> patients, AtomicBoolean unavailable) {
+        for (int attempt = 1; ; attempt++) {
+            if (unavailable.get()) {
+                requeue(p.record(), new ServiceUnavailableException("dependency unavailable earlier in this batch"));
+                return;
+            }
+            try {
+                Map<String, Object> doctor = lookup(doctors, p.req().doctorId(), external::getDoctorProfileAsync);
+                Map<String, Object> patient = lookup(patients, p.req().patientId(), external::getPatientAsync);
+                service.book(p.req(), doctor, patient);
+                booked.increment();
+                return;
+            } catch (ServiceUnavailableException e) {
+                if (attempt >= retryAttempts || !backOff(attempt)) {
+                    unavailable.set(true);
+                    requeue(p.record(), e);
+                    return;
+                }
+                retried.increment();
+            } catch (Exception e) {
+                // not found, slot taken, validation: retrying cannot help
+                deadLetter(p.record(), e);
+                return;
+            }
+        }
+    }
+
+    // a failed lookup is fetched again by the next record that needs it; successful ones stay shared
+    private static <K> Map<String, Object> lookup(Map<K, CompletableFuture<Map<String, Object>>> lookups, K id,
+                                                  Function<K, CompletableFuture<Map<String, Object>>> fetch) {
+        CompletableFuture<Map<String, Object>> future = lookups.compute(id,
+                (k, current) -> current == null || current.isCompletedExceptionally() ? fetch.apply(k) : current);
+        return ExternalServiceClient.await(future);
     }
 
-    @KafkaListener(topics = "${kafka.topics.bookRequest}", groupId = "appointment-service")
-    public void onBookRequest(String message) {
+    private boolean backOff(int attempt) {
         try {
-            Map<String, Object> map = mapper.readValue(message, Map.class);
-            String doctorId = (String) map.get("doctorId");
-            Long patientId = Long.valueOf(String.valueOf(map.get("patientId")));
-            LocalDateTime startTime = LocalDateTime.parse(String.valueOf(map.get("startTime")));
-            Integer duration = Integer.valueOf(String.valueOf(map.get("durationMinutes")));
-            @Nullable String slotId = map.get("slotId") != null ? String.valueOf(map.get("slotId")) : null;
-            String notes = (String) map.getOrDefault("notes", null);
-
-            BookAppointmentRequest req = new BookAppointmentRequest(doctorId, patientId, startTime, duration, slotId, notes);
-            Appointment a = service.book(req);
-            // Booking created; confirmation still requires doctor/auto confirmation flow (up to you).
-        } catch (Exception e) {
-            e.printStackTrace();
+            Thread.sleep(retryBackoffMs << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
+
+    // back on the topic under the same key (same partition) to be tried again after the records behind it
+    private void requeue(ConsumerRecord<String, String> record, Exception e) {
+        int requeues = requeues(record);
+        if (requeues >= maxRequeues) {
+            deadLetter(record, e);
+            return;
+        }
+        ProducerRecord<String, String> again = new ProducerRecord<>(record.topic(), record.key(), record.value());
+        again.headers().add(REQUEUES_HEADER, String.valueOf(requeues + 1).getBytes(StandardCharsets.UTF_8));
+        try {
+            kafka.send(again).get(10, TimeUnit.SECONDS);
+            requeued.increment();
+            log.warn("Book request at {}-{}@{} put back on the topic ({} of {}): {}",
+                    record.topic(), record.partition(), record.offset(), requeues + 1, maxRequeues, e.toString());
+        } catch (Exception sendError) {
+            if (sendError instanceof InterruptedException) Thread.currentThread().interrupt();
+            deadLetter(record, e);
+        }
+    }
+
+    private static int requeues(ConsumerRecord<String, String> record) {
+        Header header = record.headers().lastHeader(REQUEUES_HEADER);
+        return header == null ? 0 : Integer.parseInt(new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    private void deadLetter(ConsumerRecord<String, String> record, Exception e) {
+        log.warn("Book request at {}-{}@{} failed, sending to DLT: {}",
+                record.topic(), record.partition(), record.offset(), e.toString());
+        try {
+            deadLetters.accept(record, e);
+            deadLettered.increment();
+        } catch (Exception dltError) {
+            // never fail the batch for one record: that would re-deliver the ones already booked
+            log.error("Could not dead-letter book request {}: {}", record.value(), dltError.toString());
+        }
+    }
+
+    private BookAppointmentRequest parse(String message) throws Exception {
+        Map<String, Object> map = mapper.readValue(message, Map.class);
+        String doctorId = (String) map.get("doctorId");
+        if (doctorId == null) throw new IllegalArgumentException("doctorId missing");
+        Long patientId = Long.valueOf(String.valueOf(map.get("patientId")));
+        LocalDateTime startTime = LocalDateTime.parse(String.valueOf(map.get("startTime")));
+        Integer duration = Integer.valueOf(String.valueOf(map.get("durationMinutes")));
+        @Nullable String slotId = map.get("slotId") != null ? String.valueOf(map.get("slotId")) : null;
+        String notes = (String) map.getOrDefault("notes", null);
+        return new BookAppointmentRequest(doctorId, patientId, startTime, duration, slotId, notes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
 }
@@ -0,0 +1,177 @@
+package com.healthcare.appointment_service.service;
+
+import com.healthcare.appointment_service.dto.AppointmentDtos.AppointmentStatus;
+import com.healthcare.appointment_service.entity.Appointment;
+import com.healthcare.appointment_service.repository.AppointmentRepository;
+import com.healthcare.appointment_service.util.IntervalTree;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory interval tree of each doctor's PENDING/CONFIRMED appointments that have not ended yet,
+ * loaded lazily on the doctor's first booking check.
+ * <p>
+ * {@link #reserve} checks and inserts under the doctor's lock, so two overlapping bookings on this
+ * instance can never both pass; the reservation is undone if the surrounding transaction rolls
+ * back. Reservations are also kept next to the tree until a reload is sure to have read them from
+ * the DB, so a TTL reload or {@link #evict} never drops one whose transaction is still open.
+ * Changes made through other instances are only seen after {@code ttl-sec}, so the index is never
+ * authoritative on its own: it serializes this instance's bookings, and
+ * {@link AppointmentDomainService} still runs the DB range check on every booking.
+ */
+@Component
+public class DoctorScheduleIndex {
+
+    static final List<AppointmentStatus> ACTIVE = List.of(AppointmentStatus.PENDING, AppointmentStatus.CONFIRMED);
+
+    private static final long OPEN = Long.MIN_VALUE;
+
+    private final AppointmentRepository repo;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Schedule> schedules = new ConcurrentHashMap<>();
+
+    public DoctorScheduleIndex(AppointmentRepository repo,
+                               @Value("${appointments.schedule-index.enabled:true}") boolean enabled,
+                               @Value("${appointments.schedule-index.ttl-sec:300}") long ttlSec) {
+        this.repo = repo;
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSec);
+    }
+
+    /**
+     * Reserves {@code [start, end)} for {@code appointmentId} (replacing its previous interval, for a
+     * reschedule) unless it overlaps another appointment.
+     *
+     * @return the id of the conflicting appointment, or {@code null} when reserved
+     */
+    public String reserve(String doctorId, String appointmentId, LocalDateTime start, LocalDateTime end) {
+        if (!enabled) return null;
+        Schedule schedule = schedules.computeIfAbsent(doctorId, k -> new Schedule());
+        refresh(doctorId, schedule);
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        IntervalTree.Interval previous;
+        Reservation reservation;
+        synchronized (schedule) {
+            IntervalTree.Interval conflict = schedule.tree.findOverlap(key(start), key(end), appointmentId);
+            if (conflict != null) return conflict.id();
+            previous = schedule.tree.get(appointmentId);
+            schedule.tree.put(appointmentId, key(start), key(end));
+            reservation = new Reservation(schedule.tree.get(appointmentId));
+            if (!inTransaction) reservation.committedAt = System.nanoTime();
+            schedule.reservations.put(appointmentId, reservation);
+        }
+        if (!inTransaction) return null;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (schedule) {
+                    if (status == STATUS_COMMITTED) {
+                        reservation.committedAt = System.nanoTime();
+                        return;
+                    }
+                    if (!schedule.reservations.remove(appointmentId, reservation)) return; // superseded
+                    // applied to whichever tree is current, including one reloaded since the reserve
+                    if (previous == null) schedule.tree.remove(appointmentId);
+                    else schedule.tree.put(appointmentId, previous.start(), previous.end());
+                }
+            }
+        });
+        return null;
+    }
+
+    /** Frees the appointment's interval once the current transaction commits (cancel, reject, complete). */
+    public void release(String doctorId, String appointmentId) {
+        if (!enabled) return;
+        Runnable remove = () -> {
+            Schedule schedule = schedules.get(doctorId);
+            if (schedule == null) return;
+            synchronized (schedule) {
+                schedule.reservations.remove(appointmentId);
+                if (schedule.tree != null) schedule.tree.remove(appointmentId);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove.run();
+            }
+        });
+    }
+
+    /** Marks the doctor's tree stale so the next check reloads it from the DB. */
+    public void evict(String doctorId) {
+        Schedule schedule = schedules.get(doctorId);
+        if (schedule == null) return;
+        synchronized (schedule) {
+            schedule.evicted = true;
+            schedule.evictedAt = System.nanoTime();
+        }
+    }
+
+    private void refresh(String doctorId, Schedule schedule) {
+        long started = System.nanoTime();
+        synchronized (schedule) {
+            if (schedule.isFresh(started, ttlNanos)) return;
+        }
+
+        // queried outside the lock so a slow load never blocks bookings already checked against the old tree
+        List<Appointment> rows = repo.findByDoctorIdAndStatusInAndEndTimeAfter(doctorId, ACTIVE, LocalDateTime.now());
+        synchronized (schedule) {
+            if (schedule.tree != null && schedule.loadedAt - started >= 0) return; // a later load already landed
+            IntervalTree tree = new IntervalTree();
+            for (Appointment a : rows) {
+                LocalDateTime end = a.getEndTime() != null ? a.getEndTime() : a.getStartTime().plusMinutes(a.getDurationMinutes());
+                tree.put(a.getId(), key(a.getStartTime()), key(end));
+            }
+            // committed before the query started: the rows above already have them
+            schedule.reservations.values().removeIf(r -> r.committedAt != OPEN && r.committedAt - started < 0);
+            for (Reservation r : schedule.reservations.values()) {
+                tree.put(r.interval.id(), r.interval.start(), r.interval.end());
+            }
+            schedule.tree = tree;
+            schedule.loadedAt = started;
+        }
+    }
+
+    private static long key(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // one per doctor, never replaced, so its monitor is the doctor's lock across reloads
+    private static final class Schedule {
+        IntervalTree tree; // null until the first load
+        long loadedAt;     // System.nanoTime() when the query behind tree started
+        long evictedAt;
+        boolean evicted;
+        // reservations a reload might not see in the DB yet: open, or committed after the last load began
+        final Map<String, Reservation> reservations = new HashMap<>();
+
+        boolean isFresh(long now, long ttlNanos) {
+            return tree != null && now - loadedAt < ttlNanos && !(evicted && evictedAt - loadedAt >= 0);
+        }
+    }
+
+    private static final class Reservation {
+        final IntervalTree.Interval interval;
+        long committedAt = OPEN; // guarded by the Schedule's lock
+
+        Reservation(IntervalTree.Interval interval) {
+            this.interval = interval;
+        }
+    }
+}
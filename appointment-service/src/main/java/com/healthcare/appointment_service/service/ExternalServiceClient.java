@@ -1,71 +1,150 @@
 package com.healthcare.appointment_service.service;
 
+import com.healthcare.appointment_service.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Component
 public class ExternalServiceClient {
 
     private final WebClient doctorClient;
     private final WebClient patientClient;
+    private final Duration lookupTimeout;
+    private final Duration claimTimeout;
+    private final int claimRetries;
 
-    public ExternalServiceClient(WebClient doctorClient, WebClient patientClient){
+    public ExternalServiceClient(WebClient doctorClient, WebClient patientClient,
+                                 @Value("${external.lookup-timeout-ms:3000}") long lookupTimeoutMs,
+                                 @Value("${external.claim.timeout-ms:3000}") long claimTimeoutMs,
+                                 @Value("${external.claim.retries:2}") int claimRetries){
         this.doctorClient = doctorClient;
         this.patientClient = patientClient;
+        this.lookupTimeout = Duration.ofMillis(lookupTimeoutMs);
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMs);
+        this.claimRetries = claimRetries;
     }
 
+    /**
+     * Doctor profile, or an empty map if doctor-service has no such doctor. Any other failure
+     * (timeout, 5xx, connection) completes the future with {@link ServiceUnavailableException}.
+     */
     public CompletableFuture<Map<String,Object>> getDoctorProfileAsync(String doctorId){
-        return doctorClient.get()
-                .uri("/doctors/{id}", doctorId)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .onErrorResume(e -> Mono.just(Map.of())) // return empty map on error
-                .toFuture();
+        return lookup(doctorClient.get().uri("/doctors/{id}", doctorId), "doctor-service");
     }
 
+    /** Patient, or an empty map if patient-service has no such patient; see {@link #getDoctorProfileAsync}. */
     public CompletableFuture<Map<String,Object>> getPatientAsync(Long patientId){
-        return patientClient.get().uri("/patients/{id}", patientId)
-                .retrieve()
+        return lookup(patientClient.get().uri("/patients/{id}", patientId), "patient-service");
+    }
+
+    private CompletableFuture<Map<String,Object>> lookup(WebClient.RequestHeadersSpec<?> request, String service){
+        return request.retrieve()
                 .bodyToMono(new ParameterizedTypeReference<Map<String,Object>>() {})
-                .onErrorResume(e-> Mono.just(Map.of()))
+                .timeout(lookupTimeout)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(Map.of()))
+                .onErrorMap(e -> new ServiceUnavailableException(service + " lookup failed: " + e, e))
                 .toFuture();
     }
 
+    /** {@link CompletableFuture#join()} that rethrows the lookup's own exception, not a CompletionException. */
+    public static <T> T await(CompletableFuture<T> future){
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
     /**
-     * Validates a slot/time with doctor-service and (optionally) "locks" it by blocking it for booking.
-     * If you already have slotId, you can call the block API; else validate by checking free slots.
+     * Claims a slot in doctor-service with its compare-and-set claim endpoint, so two concurrent
+     * bookings can never both get it. Without a slotId the slot is looked up by doctor, date and
+     * start time, must match {@code durationMinutes}, and is claimed at the version that was looked up.
+     * <p>
+     * {@code claimToken} identifies this booking: doctor-service accepts a repeated claim with the same
+     * token, so timeouts and 5xx are retried. If the outcome is still unknown the claim is released
+     * with the token and {@link ServiceUnavailableException} is thrown, rather than reporting the slot as taken.
+     *
+     * @return the claimed slot id, or {@code null} if the slot does not exist or is already taken
      */
-    public boolean validateAndLockSlot(String doctorId, String slotId, LocalDateTime start, int durationMinutes){
-        try {
-            // If slotId provided → call block API (toggle blocked=true for that slot)
-            if (slotId != null && !slotId.isBlank()) {
-                Map<String,Object> req = Map.of("slotIds", List.of(slotId), "blocked", true);
-                Map resp = doctorClient.put()
-                        .uri("/doctors/{id}/availability/slots/block", doctorId)
-                        .bodyValue(req).retrieve().bodyToMono(Map.class).block();
-                return resp != null;
-            } else {
-                // else fetch all slots and ensure start is available (simple check)
-                List<Map<String,Object>> slots = doctorClient.get()
-                        .uri("/doctors/{id}/availability/slots", doctorId)
-                        .retrieve().bodyToMono(List.class).block();
-                if (slots == null) return false;
-                return slots.stream().anyMatch(s -> {
-                    String sStart = String.valueOf(s.get("startTime"));
-                    boolean blocked = Boolean.TRUE.equals(s.get("blocked"));
-                    Integer dur = Integer.valueOf(String.valueOf(s.get("durationMinutes")));
-                    return sStart.equals(start.toString()) && dur == durationMinutes && !blocked;
-                });
+    public String claimSlot(String doctorId, String slotId, LocalDateTime start, int durationMinutes, String claimToken){
+        Long expectedVersion = null;
+        if (slotId == null || slotId.isBlank()) {
+            Map<String,Object> slot;
+            try {
+                slot = doctorClient.get()
+                        .uri(b -> b.path("/doctors/{id}/availability/slots/lookup")
+                                .queryParam("date", start.toLocalDate())
+                                .queryParam("startTime", start.toLocalTime())
+                                .build(doctorId))
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                        .timeout(lookupTimeout)
+                        .block();
+            } catch (WebClientResponseException.NotFound e) {
+                return null;
+            } catch (RuntimeException e) {
+                throw new ServiceUnavailableException("doctor-service slot lookup failed: " + e, e);
             }
-        } catch (Exception e){
-            return false;
+            if (slot == null || Boolean.TRUE.equals(slot.get("blocked"))) return null;
+            LocalTime sStart = LocalTime.parse(String.valueOf(slot.get("startTime")));
+            LocalTime sEnd = LocalTime.parse(String.valueOf(slot.get("endTime")));
+            if (Duration.between(sStart, sEnd).toMinutes() != durationMinutes) return null;
+            slotId = String.valueOf(slot.get("id"));
+            if (slot.get("version") instanceof Number v) expectedVersion = v.longValue();
         }
+
+        Map<String,Object> body = new HashMap<>();
+        body.put("expectedVersion", expectedVersion);
+        body.put("claimToken", claimToken);
+        try {
+            doctorClient.post()
+                    .uri("/doctors/{id}/availability/slots/{slotId}/claim", doctorId, slotId)
+                    .bodyValue(body)
+                    .retrieve().toBodilessEntity()
+                    .timeout(claimTimeout)
+                    // only a 4xx is a definite answer; a retry after a lost 200 is recognised by the token
+                    .retryWhen(Retry.backoff(claimRetries, Duration.ofMillis(200)).filter(e -> !isClientError(e)))
+                    .block();
+            return slotId;
+        } catch (WebClientResponseException e) {
+            int status = e.getStatusCode().value();
+            if (status == 409 || status == 404) return null;
+            releaseSlot(doctorId, slotId, claimToken);
+            throw new ServiceUnavailableException("doctor-service slot claim failed: " + e, e);
+        } catch (RuntimeException e) {
+            releaseSlot(doctorId, slotId, claimToken);
+            throw new ServiceUnavailableException("doctor-service slot claim failed: " + e, e);
+        }
+    }
+
+    private static boolean isClientError(Throwable e){
+        return e instanceof WebClientResponseException w && w.getStatusCode().is4xxClientError();
+    }
+
+    /** Frees a slot claimed with {@code claimToken}; a slot claimed by another booking is left alone. Best effort. */
+    public void releaseSlot(String doctorId, String slotId, String claimToken){
+        if (slotId == null || slotId.isBlank() || claimToken == null) return;
+        try {
+            doctorClient.post()
+                    .uri("/doctors/{id}/availability/slots/{slotId}/release", doctorId, slotId)
+                    .bodyValue(Map.of("claimToken", claimToken))
+                    .retrieve().toBodilessEntity()
+                    .timeout(claimTimeout)
+                    .block();
+        } catch (Exception ignored) { }
     }
 
     public void unlockSlotIfNeeded(String doctorId, String slotId){
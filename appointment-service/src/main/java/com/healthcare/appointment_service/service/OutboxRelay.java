@@ -0,0 +1,202 @@
+package com.healthcare.appointment_service.service;
+
+import com.healthcare.appointment_service.entity.OutboxEvent;
+import com.healthcare.appointment_service.entity.OutboxRelayLease;
+import com.healthcare.appointment_service.repository.OutboxEventRepository;
+import com.healthcare.appointment_service.repository.OutboxRelayLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends {@link OutboxEvent}s to Kafka. Only the instance holding the {@link OutboxRelayLease}
+ * relays, so each key's events leave in outbox order. Every event of a batch is handed to the
+ * producer at once (so they are pipelined and batched per partition), and the acknowledged ones
+ * are marked published with a single UPDATE in a short transaction of its own; no transaction or
+ * row lock is held while waiting for the broker. Once an event fails, later events with the same
+ * key are neither sent nor marked in that batch, so the retry is never overtaken. Unacknowledged
+ * events stay in the outbox and are retried on the next run, so delivery is at-least-once.
+ * <p>
+ * Metrics: {@code appointment.outbox.published} / {@code .failed} (throughput),
+ * {@code appointment.outbox.lag} (age of the oldest unsent event) and {@code appointment.outbox.batch}.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String LEASE = "appointment-outbox-relay";
+
+    private final OutboxEventRepository outbox;
+    private final OutboxRelayLeaseRepository leases;
+    private final KafkaTemplate<String, String> kafka;
+    private final TransactionTemplate tx;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final long leaseMs;
+    private final long retentionHours;
+    private final Counter published;
+    private final Counter failed;
+    private final Timer batchTimer;
+    private final AtomicLong lagMs = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository outbox,
+                       OutboxRelayLeaseRepository leases,
+                       KafkaTemplate<String, String> kafka,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.batch-size:200}") int batchSize,
+                       @Value("${outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs,
+                       @Value("${outbox.relay.lease-ms:30000}") long leaseMs,
+                       @Value("${outbox.relay.retention-hours:24}") long retentionHours) {
+        // the lease is renewed before each batch, so it has to outlive the slowest one
+        if (leaseMs <= sendTimeoutMs) {
+            throw new IllegalStateException("outbox.relay.lease-ms must be longer than send-timeout-ms");
+        }
+        this.outbox = outbox;
+        this.leases = leases;
+        this.kafka = kafka;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.leaseMs = leaseMs;
+        this.retentionHours = retentionHours;
+        this.published = meterRegistry.counter("appointment.outbox.published");
+        this.failed = meterRegistry.counter("appointment.outbox.failed");
+        this.batchTimer = meterRegistry.timer("appointment.outbox.batch");
+        TimeGauge.builder("appointment.outbox.lag", lagMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}")
+    public void relay() {
+        // drain while full batches go out cleanly; on a failure wait for the next run
+        while (holdsLease() && relayBatch() == batchSize) { }
+    }
+
+    // takes or renews the lease; instance clocks are assumed to agree to well within lease-ms
+    private boolean holdsLease() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(leaseMs, ChronoUnit.MILLIS);
+        try {
+            return Boolean.TRUE.equals(tx.execute(status -> {
+                if (leases.acquire(LEASE, instanceId, now, until) == 1) return true;
+                if (leases.existsById(LEASE)) return false;
+                leases.saveAndFlush(OutboxRelayLease.builder().name(LEASE).owner(instanceId).leaseUntil(until).build());
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return false; // another instance created the lease row first
+        }
+    }
+
+    /** @return events published, or -1 when a send failed */
+    private int relayBatch() {
+        Timer.Sample sample = Timer.start();
+        try {
+            List<OutboxEvent> batch = outbox.findUnpublished(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                lagMs.set(0);
+                return 0;
+            }
+            lagMs.set(Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis());
+
+            // keys whose earlier event could not even be handed to the producer get nothing more sent
+            Set<String> blocked = new HashSet<>();
+            List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(batch.size());
+            for (OutboxEvent event : batch) {
+                if (event.getEventKey() != null && blocked.contains(event.getEventKey())) {
+                    sends.add(null);
+                    continue;
+                }
+                try {
+                    sends.add(kafka.send(event.getTopic(), event.getEventKey(), event.getPayload()));
+                } catch (Exception e) {
+                    if (event.getEventKey() != null) blocked.add(event.getEventKey());
+                    sends.add(CompletableFuture.failedFuture(e));
+                }
+            }
+
+            // walk the acks in outbox order; after a key's first failure its later events stay unpublished
+            blocked.clear();
+            List<Long> done = new ArrayList<>(batch.size());
+            boolean allSent = true;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+            for (int i = 0; i < batch.size(); i++) {
+                OutboxEvent event = batch.get(i);
+                if (event.getEventKey() != null && blocked.contains(event.getEventKey())) {
+                    allSent = false;
+                    continue;
+                }
+                try {
+                    sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    done.add(event.getId());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    allSent = false;
+                    break;
+                } catch (ExecutionException | TimeoutException e) {
+                    allSent = false;
+                    if (event.getEventKey() != null) blocked.add(event.getEventKey());
+                    failed.increment();
+                    log.warn("Outbox event {} to {} not acknowledged, will retry: {}",
+                            event.getId(), event.getTopic(), e.toString());
+                }
+            }
+            if (!done.isEmpty()) {
+                LocalDateTime publishedAt = LocalDateTime.now();
+                tx.executeWithoutResult(status -> outbox.markPublished(done, publishedAt));
+            }
+            published.increment(done.size());
+            return allSent ? done.size() : -1;
+        } finally {
+            sample.stop(batchTimer);
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        // lets another instance take over right away instead of after lease-ms
+        tx.executeWithoutResult(status -> leases.release(LEASE, instanceId, LocalDateTime.now().minusSeconds(1)));
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.cleanup-interval-ms:3600000}")
+    public void deletePublished() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        while (true) {
+            Integer deleted = tx.execute(status -> {
+                List<Long> ids = outbox.findPublishedBefore(before, PageRequest.of(0, 1000));
+                return ids.isEmpty() ? 0 : outbox.deleteByIdIn(ids);
+            });
+            if (deleted == null || deleted < 1000) return;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.healthcare.appointment_service.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Half-open intervals {@code [start, end)} keyed by id, stored in a treap ordered by start and
+ * augmented with the maximum end of each subtree, so "does anything overlap [s, e)?" is answered
+ * in O(log n) expected time. Not thread-safe; callers lock around it.
+ */
+public class IntervalTree {
+
+    public record Interval(String id, long start, long end) {}
+
+    private static final class Node {
+        final Interval interval;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left, right;
+        long maxEnd;
+
+        Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+    }
+
+    private final Map<String, Interval> byId = new HashMap<>();
+    private Node root;
+
+    public int size() {
+        return byId.size();
+    }
+
+    public Interval get(String id) {
+        return byId.get(id);
+    }
+
+    /** Adds or replaces the interval for {@code id}. */
+    public void put(String id, long start, long end) {
+        remove(id);
+        Interval interval = new Interval(id, start, end);
+        byId.put(id, interval);
+        root = insert(root, new Node(interval));
+    }
+
+    public Interval remove(String id) {
+        Interval interval = byId.remove(id);
+        if (interval != null) root = delete(root, interval);
+        return interval;
+    }
+
+    /** Any interval overlapping {@code [start, end)} other than {@code excludeId}, or {@code null}. */
+    public Interval findOverlap(long start, long end, String excludeId) {
+        return find(root, start, end, excludeId);
+    }
+
+    private static Interval find(Node node, long start, long end, String excludeId) {
+        if (node == null || node.maxEnd <= start) return null;
+        Interval hit = find(node.left, start, end, excludeId);
+        if (hit != null) return hit;
+        Interval i = node.interval;
+        if (i.start() >= end) return null; // everything to the right starts even later
+        if (i.end() > start && !i.id().equals(excludeId)) return i;
+        return find(node.right, start, end, excludeId);
+    }
+
+    private static int compare(Interval a, Interval b) {
+        int c = Long.compare(a.start(), b.start());
+        return c != 0 ? c : a.id().compareTo(b.id());
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (compare(added.interval, node.interval) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, Interval interval) {
+        if (node == null) return null;
+        int c = compare(interval, node.interval);
+        if (c < 0) {
+            node.left = delete(node.left, interval);
+        } else if (c > 0) {
+            node.right = delete(node.right, interval);
+        } else {
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            if (node.left.priority > node.right.priority) {
+                node = rotateRight(node);
+                node.right = delete(node.right, interval);
+            } else {
+                node = rotateLeft(node);
+                node.left = delete(node.left, interval);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        long max = node.interval.end();
+        if (node.left != null) max = Math.max(max, node.left.maxEnd);
+        if (node.right != null) max = Math.max(max, node.right.maxEnd);
+        node.maxEnd = max;
+    }
+}
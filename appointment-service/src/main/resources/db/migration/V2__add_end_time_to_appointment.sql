@@ -0,0 +1,11 @@
+ALTER TABLE appointments
+ADD COLUMN end_time DATETIME(6) NULL AFTER duration_minutes;
+
+UPDATE appointments
+SET end_time = DATE_ADD(start_time, INTERVAL duration_minutes MINUTE)
+WHERE end_time IS NULL;
+
+ALTER TABLE appointments
+MODIFY end_time DATETIME(6) NOT NULL;
+
+CREATE INDEX idx_appt_doctor_end ON appointments (doctor_id, end_time);
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    topic VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    published_at DATETIME(6) NULL,
+    PRIMARY KEY (id),
+    INDEX idx_outbox_unpublished (published_at, id)
+);
@@ -0,0 +1 @@
+ALTER TABLE outbox_events ADD COLUMN event_key VARCHAR(64) NULL AFTER topic;
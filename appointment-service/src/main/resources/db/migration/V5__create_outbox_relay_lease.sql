@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS outbox_relay_lease (
+    name VARCHAR(64) NOT NULL,
+    owner VARCHAR(64) NOT NULL,
+    lease_until DATETIME(6) NOT NULL,
+    version BIGINT NULL,
+    PRIMARY KEY (name)
+);
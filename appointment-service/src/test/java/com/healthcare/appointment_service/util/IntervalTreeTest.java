@@ -0,0 +1,100 @@
+package com.healthcare.appointment_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    @Test
+    void halfOpenIntervalsOnlyTouching() {
+        IntervalTree tree = new IntervalTree();
+        tree.put("a", 10, 20);
+        assertNull(tree.findOverlap(20, 30, null));
+        assertNull(tree.findOverlap(0, 10, null));
+        assertEquals("a", tree.findOverlap(19, 21, null).id());
+        assertEquals("a", tree.findOverlap(12, 13, null).id());
+        assertEquals("a", tree.findOverlap(0, 100, null).id());
+    }
+
+    @Test
+    void excludedIntervalIsSkippedAndSearchBacktracks() {
+        IntervalTree tree = new IntervalTree();
+        tree.put("self", 0, 100);   // overlaps everything, found first on the left
+        tree.put("early", 5, 10);
+        tree.put("late", 60, 70);
+        tree.put("after", 200, 210);
+        assertEquals("self", tree.findOverlap(65, 66, null).id());
+        assertEquals("late", tree.findOverlap(65, 66, "self").id());
+        assertEquals("early", tree.findOverlap(8, 9, "self").id());
+        assertNull(tree.findOverlap(20, 50, "self"));
+        assertNull(tree.findOverlap(100, 200, "self"));
+    }
+
+    @Test
+    void putReplacesAndRemoveDeletes() {
+        IntervalTree tree = new IntervalTree();
+        tree.put("a", 10, 20);
+        tree.put("a", 30, 40); // reschedule
+        assertEquals(1, tree.size());
+        assertNull(tree.findOverlap(10, 20, null));
+        assertEquals(new IntervalTree.Interval("a", 30, 40), tree.get("a"));
+
+        assertEquals(new IntervalTree.Interval("a", 30, 40), tree.remove("a"));
+        assertNull(tree.remove("a"));
+        assertEquals(0, tree.size());
+        assertNull(tree.findOverlap(0, 100, null));
+    }
+
+    @Test
+    void sameStartDifferentIds() {
+        IntervalTree tree = new IntervalTree();
+        tree.put("b", 10, 20);
+        tree.put("a", 10, 15);
+        tree.put("c", 10, 30);
+        tree.remove("b");
+        assertEquals("c", tree.findOverlap(25, 26, null).id());
+        assertNotNull(tree.findOverlap(12, 13, "c"));
+        assertEquals("a", tree.findOverlap(12, 13, "c").id());
+        assertNull(tree.findOverlap(16, 17, "c"));
+    }
+
+    // random inserts, replaces and deletes exercise every rotation on insert and delete; the
+    // answers must match a linear scan, which also checks the subtree max-end kept by rotations
+    @Test
+    void matchesLinearScanUnderRandomUpdates() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        Map<String, IntervalTree.Interval> expected = new HashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            String id = "i" + random.nextInt(300);
+            int op = random.nextInt(10);
+            if (op < 6) {
+                long start = random.nextInt(10_000);
+                long end = start + 1 + random.nextInt(200);
+                tree.put(id, start, end);
+                expected.put(id, new IntervalTree.Interval(id, start, end));
+            } else if (op < 9) {
+                assertEquals(expected.remove(id), tree.remove(id));
+            } else {
+                long start = random.nextInt(10_000);
+                long end = start + 1 + random.nextInt(300);
+                String exclude = random.nextBoolean() ? id : null;
+                IntervalTree.Interval hit = tree.findOverlap(start, end, exclude);
+                List<IntervalTree.Interval> overlapping = new ArrayList<>();
+                for (IntervalTree.Interval i : expected.values()) {
+                    if (i.start() < end && i.end() > start && !i.id().equals(exclude)) overlapping.add(i);
+                }
+                if (overlapping.isEmpty()) assertNull(hit);
+                else assertTrue(overlapping.contains(hit), () -> "not an overlap: " + hit);
+            }
+            assertEquals(expected.size(), tree.size());
+        }
+    }
+}
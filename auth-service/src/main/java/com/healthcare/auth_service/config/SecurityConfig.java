@@ -2,6 +2,7 @@ package com.healthcare.auth_service.config;
 
 import com.healthcare.auth_service.security.JwtAuthenticationEntryPoint;
 import com.healthcare.auth_service.security.JwtAuthenticationFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -16,6 +17,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 @Configuration
 public class SecurityConfig {
 
@@ -47,9 +51,25 @@ public class SecurityConfig {
 //        return new InMemoryUserDetailsManager(admin,normal);
 //    }
 
+    // Changing the strength is safe: existing hashes still verify and are re-hashed on the next login.
+    @Value("${security.password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
     @Bean
     public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+        int strength = bcryptStrength;
+        return new BCryptPasswordEncoder(strength) {
+            // BCryptPasswordEncoder only upgrades weaker hashes; re-hash whenever the cost differs,
+            // so lowering the strength (e.g. to cut login CPU) also takes effect.
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                if (encodedPassword == null) return false;
+                Matcher m = BCRYPT_COST.matcher(encodedPassword);
+                return m.find() ? Integer.parseInt(m.group(1)) != strength : super.upgradeEncoding(encodedPassword);
+            }
+        };
     }
 
     @Bean
@@ -75,6 +95,7 @@ public class SecurityConfig {
                                         "/webjars/**"
                                 ).permitAll()
                                 .requestMatchers(HttpMethod.POST, "/auth/**").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/auth/register/status/**").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/health").permitAll()
                                 .anyRequest()
                                 .authenticated()
@@ -20,23 +20,29 @@ public class AuthController {
 
     public AuthController(AuthService authService) { this.authService = authService; }
 
-    @Operation(summary = "Register doctor (orchestrated)")
+    @Operation(summary = "Register doctor (orchestrated, completes asynchronously)")
     @PostMapping("/register/doctor")
     public ResponseEntity<RegisterResponse> registerDoctor(@Valid @RequestBody RegisterDoctorRequest req){
         // role checks (if any) — open for public registration; gateway can block if needed
-        return ResponseEntity.ok(authService.registerDoctor(req));
+        return ResponseEntity.accepted().body(authService.registerDoctor(req));
     }
 
-    @Operation(summary = "Register patient (orchestrated)")
+    @Operation(summary = "Register patient (orchestrated, completes asynchronously)")
     @PostMapping("/register/patient")
     public ResponseEntity<RegisterResponse> registerPatient(@Valid @RequestBody RegisterPatientRequest req){
-        return ResponseEntity.ok(authService.registerPatient(req));
+        return ResponseEntity.accepted().body(authService.registerPatient(req));
     }
 
-    @Operation(summary = "Register admin (orchestrated)")
+    @Operation(summary = "Register admin (orchestrated, completes asynchronously)")
     @PostMapping("/register/admin")
     public ResponseEntity<RegisterResponse> registerAdmin(@Valid @RequestBody RegisterAdminRequest req){
-        return ResponseEntity.ok(authService.registerAdmin(req));
+        return ResponseEntity.accepted().body(authService.registerAdmin(req));
+    }
+
+    @Operation(summary = "Registration status - PENDING, DONE or FAILED with the reason (userId from the 202 response)")
+    @GetMapping("/register/status/{userId}")
+    public ResponseEntity<RegistrationStatusResponse> registrationStatus(@PathVariable String userId){
+        return ResponseEntity.ok(authService.registrationStatus(userId));
     }
 
     @Operation(summary = "Login")
@@ -51,6 +57,15 @@ public class AuthController {
         return ResponseEntity.ok(authService.refresh(req));
     }
 
+    @Operation(summary = "Logout - revoke the current access token (and optionally the refresh token)")
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                       @RequestBody(required = false) LogoutRequest req){
+        if (authorization == null || !authorization.startsWith("Bearer ")) return ResponseEntity.status(401).build();
+        authService.logout(authorization.substring(7), req);
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(summary = "Profile - get my profile (user must be authenticated)")
     @GetMapping("/me")
     public ResponseEntity<ProfileResponse> me(Principal auth){
@@ -84,9 +84,15 @@ public class AuthDtos {
         @NotBlank private String refreshToken;
     }
 
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor
+    public static class LogoutRequest {
+        private String refreshToken; // optional: also revoke this refresh token's family
+    }
+
     @Getter @Setter @NoArgsConstructor @AllArgsConstructor
     public static class RefreshResponse {
         private String jwtToken;
+        private String refreshToken; // rotated: the token sent in the request is no longer valid
         private long expiresIn;
     }
 
@@ -97,6 +103,13 @@ public class AuthDtos {
         private String domainId;
     }
 
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor
+    public static class RegistrationStatusResponse {
+        private String userId;
+        private String status; // PENDING, DONE or FAILED
+        private String reason; // why it failed; null otherwise
+    }
+
     @Getter @Setter @NoArgsConstructor @AllArgsConstructor
     public static class ProfileResponse {
         private String userId;
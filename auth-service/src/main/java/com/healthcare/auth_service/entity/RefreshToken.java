@@ -7,7 +7,9 @@ import java.time.OffsetDateTime;
 
 @Entity
 @Table(name = "refresh_tokens", indexes = {
-        @Index(name = "idx_refresh_token_user", columnList = "user_id")
+        @Index(name = "idx_refresh_token_user", columnList = "user_id"),
+        @Index(name = "uk_refresh_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_token_family", columnList = "family_id")
 })
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class RefreshToken {
@@ -18,14 +20,23 @@ public class RefreshToken {
     @Column(name = "user_id", length = 36, nullable = false)
     private String userId;
 
-    @Column(nullable = false, length = 500)
-    private String token;
+    // SHA-256 hex of the refresh JWT, see TokenDigest; the raw token is never stored
+    @Column(name = "token_hash", nullable = false, length = 64, columnDefinition = "char(64)")
+    private String tokenHash;
+
+    // every token rotated from the same login shares the family; reuse of a rotated token revokes it
+    @Column(name = "family_id", length = 36, nullable = false)
+    private String familyId;
 
     @Column(nullable = false)
     private OffsetDateTime expiresAt;
 
+    @Builder.Default
     private OffsetDateTime createdAt = OffsetDateTime.now();
 
+    @Builder.Default
     private boolean revoked = false;
-}
 
+    // kept for security.refresh-token-purge.revoked-retention-sec so reuse of a rotated token is still detected
+    private OffsetDateTime revokedAt;
+}
@@ -0,0 +1,54 @@
+package com.healthcare.auth_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One pending domain-record creation of the registration saga, written in the same transaction
+ * as the PENDING user. {@code nextAttemptAt} doubles as a lease: claiming a row pushes it forward,
+ * so a relay that dies mid-call simply lets the row become due again. Rows are kept after DONE/FAILED
+ * so the client can look up how its registration ended.
+ */
+@Entity
+@Table(name = "registration_outbox", indexes = {
+        @Index(name = "idx_registration_outbox_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_registration_outbox_user", columnList = "user_id")
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class RegistrationOutbox {
+
+    public enum Status { PENDING, DONE, FAILED }
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", length = 36, nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Role role;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload; // DoctorDomain / PatientDomain / AdminDomain as JSON
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Builder.Default
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+}
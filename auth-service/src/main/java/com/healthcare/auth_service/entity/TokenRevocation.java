@@ -0,0 +1,38 @@
+package com.healthcare.auth_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A revoked access token (by jti) or a revoked subject (every token issued to that email before
+ * {@code revokedAt}). Rows are only needed until {@code expiresAt}, after which every token they
+ * could match has expired on its own.
+ */
+@Entity
+@Table(name = "token_revocations", indexes = {
+        @Index(name = "uk_token_revocation", columnList = "type, revoked_value", unique = true),
+        @Index(name = "idx_token_revocation_expires", columnList = "expires_at")
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class TokenRevocation {
+
+    public enum Type { TOKEN, SUBJECT }
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "revoked_value", nullable = false)
+    private String value; // jti or email
+
+    @Column(nullable = false)
+    private OffsetDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+}
@@ -1,5 +1,6 @@
 package com.healthcare.auth_service.entity;
 
+import com.healthcare.auth_service.security.UserCacheInvalidationListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
@@ -12,6 +13,7 @@ import java.util.List;
 
 
 @Entity
+@EntityListeners(UserCacheInvalidationListener.class)
 @Table(name = "users", indexes = {
         @Index(name = "idx_users_email", columnList = "email", unique = true)
 })
@@ -39,6 +41,12 @@ public class User implements UserDetails{
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // PENDING until the registration saga has created the doctor/patient/admin record; null = legacy ACTIVE row
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    @Builder.Default
+    private UserStatus status = UserStatus.ACTIVE;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(role.name()));
@@ -74,6 +82,6 @@ public class User implements UserDetails{
     @Override
     public boolean isEnabled() {
 //        return UserDetails.super.isEnabled();
-        return true;
+        return status == null || status == UserStatus.ACTIVE;
     }
 }
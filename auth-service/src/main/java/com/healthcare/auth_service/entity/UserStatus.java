@@ -0,0 +1,6 @@
+package com.healthcare.auth_service.entity;
+
+public enum UserStatus {
+    PENDING,
+    ACTIVE
+}
@@ -0,0 +1,5 @@
+package com.healthcare.auth_service.exception;
+
+public class ForbiddenException extends RuntimeException {
+    public ForbiddenException(String message){ super(message); }
+}
@@ -30,6 +30,26 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    @ExceptionHandler(ForbiddenException.class)
+    public ResponseEntity<?> onForbidden(ForbiddenException ex, HttpServletRequest req){
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of(
+                "timestamp", OffsetDateTime.now(),
+                "path", req.getRequestURI(),
+                "error", ex.getMessage()
+        ));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<?> onUnavailable(ServiceUnavailableException ex, HttpServletRequest req){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "timestamp", OffsetDateTime.now(),
+                        "path", req.getRequestURI(),
+                        "error", ex.getMessage()
+                ));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> onValidation(MethodArgumentNotValidException ex, HttpServletRequest req){
         String msg = ex.getBindingResult().getFieldErrors().stream()
@@ -0,0 +1,5 @@
+package com.healthcare.auth_service.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message){ super(message); }
+}
@@ -1,11 +1,36 @@
 package com.healthcare.auth_service.repository;
 
 import com.healthcare.auth_service.entity.RefreshToken;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
     void deleteByUserId(String userId);
+
+    // returns 0 when another request already rotated/revoked this token
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true, t.revokedAt = :now where t.id = :id and t.revoked = false")
+    int revokeIfActive(@Param("id") Long id, @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true, t.revokedAt = :now where t.familyId = :familyId and t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") OffsetDateTime now);
+
+    // keyset page for RefreshTokenPurger: walks the primary key, never an OFFSET
+    @Query("select t.id from RefreshToken t where t.id > :afterId " +
+            "and (t.expiresAt < :now or (t.revoked = true and t.revokedAt < :revokedBefore)) order by t.id")
+    List<Long> findPurgeableIds(@Param("afterId") long afterId, @Param("now") OffsetDateTime now,
+                                @Param("revokedBefore") OffsetDateTime revokedBefore, Pageable page);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.id in :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,28 @@
+package com.healthcare.auth_service.repository;
+
+import com.healthcare.auth_service.entity.RegistrationOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface RegistrationOutboxRepository extends JpaRepository<RegistrationOutbox, Long> {
+
+    @Query("select o.id from RegistrationOutbox o where o.status = com.healthcare.auth_service.entity.RegistrationOutbox.Status.PENDING " +
+            "and o.nextAttemptAt <= :now order by o.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") OffsetDateTime now, Pageable page);
+
+    // lease: only one relay (scheduled or immediate dispatch) can claim a due row
+    @Modifying
+    @Query("update RegistrationOutbox o set o.attempts = o.attempts + 1, o.nextAttemptAt = :leaseUntil " +
+            "where o.id = :id and o.status = com.healthcare.auth_service.entity.RegistrationOutbox.Status.PENDING " +
+            "and o.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") OffsetDateTime now, @Param("leaseUntil") OffsetDateTime leaseUntil);
+
+    Optional<RegistrationOutbox> findFirstByUserIdOrderByIdDesc(String userId);
+}
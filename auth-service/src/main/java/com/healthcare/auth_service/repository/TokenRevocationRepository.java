@@ -0,0 +1,20 @@
+package com.healthcare.auth_service.repository;
+
+import com.healthcare.auth_service.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+    Optional<TokenRevocation> findByTypeAndValue(TokenRevocation.Type type, String value);
+    List<TokenRevocation> findByExpiresAtAfter(OffsetDateTime now);
+
+    @Modifying
+    @Query("delete from TokenRevocation r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
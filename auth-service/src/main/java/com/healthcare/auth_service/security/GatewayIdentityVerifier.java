@@ -0,0 +1,112 @@
+package com.healthcare.auth_service.security;
+
+import com.healthcare.auth_service.entity.Role;
+import com.healthcare.auth_service.entity.User;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Validates the identity headers signed by the API gateway after it has verified the JWT.
+ * The signature covers the request method and raw path, so headers captured from one request
+ * cannot be replayed against another endpoint. The HMAC format must stay in sync with the
+ * gateway's IdentityHeaderSigner.
+ */
+@Component
+public class GatewayIdentityVerifier {
+
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_ROLE = "X-User-Role";
+    public static final String USER_DOMAIN_ID = "X-User-Domain-Id";
+    public static final String ISSUED_AT = "X-Identity-Issued-At";
+    public static final String SIGNATURE = "X-Identity-Signature";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    /** The value this secret used to default to; refused like a missing one. */
+    private static final String OLD_DEFAULT_SECRET = "change-me-gateway-identity-secret";
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private final boolean enabled;
+    private final long maxSkewSec;
+    private final ThreadLocal<Mac> mac;
+
+    public GatewayIdentityVerifier(@Value("${security.trusted-headers.enabled:false}") boolean enabled,
+                                   @Value("${security.trusted-headers.secret:}") String secret,
+                                   @Value("${security.trusted-headers.max-skew-sec:30}") long maxSkewSec) {
+        this.enabled = enabled;
+        this.maxSkewSec = maxSkewSec;
+        if (!enabled) {
+            this.mac = null;
+            return;
+        }
+        if (secret == null || secret.length() < MIN_SECRET_LENGTH || OLD_DEFAULT_SECRET.equals(secret)) {
+            throw new IllegalStateException("security.trusted-headers.secret (GATEWAY_IDENTITY_SECRET) must be set to the gateway's "
+                    + "private value of at least " + MIN_SECRET_LENGTH + " characters when trusted headers are enabled");
+        }
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac m = Mac.getInstance(HMAC_ALGORITHM);
+                m.init(key);
+                return m;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Builds the principal from the gateway headers, or returns {@code null} when they are
+     * missing, stale or not signed by the gateway.
+     */
+    public User verify(HttpServletRequest request) {
+        if (!enabled) return null;
+        String subject = request.getHeader(USER_ID);
+        String role = request.getHeader(USER_ROLE);
+        String domainId = request.getHeader(USER_DOMAIN_ID);
+        String issuedAt = request.getHeader(ISSUED_AT);
+        String signature = request.getHeader(SIGNATURE);
+        if (subject == null || role == null || issuedAt == null || signature == null) return null;
+
+        long issuedAtSec;
+        try {
+            issuedAtSec = Long.parseLong(issuedAt);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (Math.abs(System.currentTimeMillis() / 1000 - issuedAtSec) > maxSkewSec) return null;
+
+        String payload = request.getMethod() + '\n' + request.getRequestURI() + '\n' + subject + '\n' + role + '\n' + (domainId == null ? "" : domainId) + '\n' + issuedAt;
+        byte[] expected = mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(expected, actual)) return null;
+
+        Role parsedRole;
+        try {
+            parsedRole = Role.valueOf(role);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return User.builder()
+                .email(subject)
+                .role(parsedRole)
+                .domainId(domainId == null || domainId.isEmpty() ? null : domainId)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.healthcare.auth_service.security;
 
+import com.healthcare.auth_service.entity.User;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import jakarta.servlet.FilterChain;
@@ -24,15 +25,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private JwtHelper jwtHelper;
     private UserDetailsService userDetailsService;
+    private GatewayIdentityVerifier gatewayIdentityVerifier;
 
-    public JwtAuthenticationFilter(JwtHelper jwtHelper, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtHelper jwtHelper, UserDetailsService userDetailsService, GatewayIdentityVerifier gatewayIdentityVerifier) {
         this.jwtHelper = jwtHelper;
         this.userDetailsService = userDetailsService;
+        this.gatewayIdentityVerifier = gatewayIdentityVerifier;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
+        //Trusted-header mode: the gateway already verified the JWT, so build the context from its signed headers
+        //without touching the DB. Unsigned/forged headers (i.e. calls not coming through the gateway) stay anonymous.
+        if (gatewayIdentityVerifier.isEnabled()) {
+            User principal = gatewayIdentityVerifier.verify(request);
+            if (principal != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } else if (principal == null) {
+                logger.info("Missing or invalid gateway identity headers !!");
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         //Authorization
         String requestHeader = request.getHeader("Authorization");
         logger.info("Header : {}",requestHeader);
@@ -3,6 +3,7 @@ package com.healthcare.auth_service.security;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import com.healthcare.auth_service.entity.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -14,6 +15,7 @@ import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -64,12 +66,15 @@ public class JwtHelper {
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", userDetails.getAuthorities().iterator().next().getAuthority());
+        // the gateway forwards domainId to downstream services in its signed identity headers
+        if (userDetails instanceof User user && user.getDomainId() != null) claims.put("domainId", user.getDomainId());
         return doGenerateToken(claims, userDetails.getUsername());
     }
 
     private String doGenerateToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString()) // lets a single access token be revoked at the gateway
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(Date.from(Instant.now().plusSeconds(accessTtlSec)))
@@ -100,6 +105,7 @@ public class JwtHelper {
         Instant now = Instant.now();
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString()) // two tokens issued in the same second must still hash differently
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(now.plusSeconds(refreshTtlSec)))
@@ -0,0 +1,82 @@
+package com.healthcare.auth_service.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-size bloom filter over revoked token ids / subjects. The bit layout and hashing must
+ * stay in sync with the gateway's RevocationBloomFilter, which reads the published bits as-is;
+ * RevocationBloomFilterTest pins both copies to the same vectors.
+ */
+public final class RevocationBloomFilter {
+
+    private final long[] bits;
+    private final int numHashes;
+
+    private RevocationBloomFilter(long[] bits, int numHashes) {
+        this.bits = bits;
+        this.numHashes = numHashes;
+    }
+
+    /** Sized for {@code expectedEntries} at roughly {@code falsePositiveRate}. */
+    public static RevocationBloomFilter create(int expectedEntries, double falsePositiveRate) {
+        int n = Math.max(1, expectedEntries);
+        long numBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (numBits + 63) / 64);
+        int k = (int) Math.max(1, Math.round((double) words * 64 / n * Math.log(2)));
+        return new RevocationBloomFilter(new long[words], Math.min(k, 16));
+    }
+
+    public void put(String value) {
+        long h1 = fnv1a64(value);
+        long h2 = mix64(h1) | 1;
+        long m = (long) bits.length * 64;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, m);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = fnv1a64(value);
+        long h2 = mix64(h1) | 1;
+        long m = (long) bits.length * 64;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, m);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public int numHashes() {
+        return numHashes;
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(bits.length * Long.BYTES);
+        for (long word : bits) buffer.putLong(word);
+        return buffer.array();
+    }
+
+    public static RevocationBloomFilter fromBytes(byte[] bytes, int numHashes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long[] bits = new long[Math.max(1, bytes.length / Long.BYTES)];
+        for (int i = 0; i < bytes.length / Long.BYTES; i++) bits[i] = buffer.getLong();
+        return new RevocationBloomFilter(bits, numHashes);
+    }
+
+    private static long fnv1a64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
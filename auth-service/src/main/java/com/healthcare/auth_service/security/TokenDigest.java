@@ -0,0 +1,24 @@
+package com.healthcare.auth_service.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fixed-length digest of a refresh token. Only the digest is persisted, so the stored value
+ * is indexable (64 chars) and a leaked table cannot be replayed against /auth/refresh.
+ */
+public final class TokenDigest {
+
+    private TokenDigest() {}
+
+    public static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.healthcare.auth_service.security;
+
+import com.healthcare.auth_service.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on {@link User}; Hibernate resolves it through Spring, so it can be injected.
+ * Invalidates on flush and again after commit, so a concurrent read between the two cannot
+ * leave the pre-commit row in the cache.
+ */
+@Component
+public class UserCacheInvalidationListener {
+
+    private final UserDetailsCache cache;
+
+    public UserCacheInvalidationListener(UserDetailsCache cache) {
+        this.cache = cache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        String userId = user.getId();
+        String email = user.getEmail();
+        cache.invalidate(userId, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(userId, email);
+                }
+            });
+        }
+    }
+}
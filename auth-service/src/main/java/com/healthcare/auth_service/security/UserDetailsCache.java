@@ -0,0 +1,70 @@
+package com.healthcare.auth_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healthcare.auth_service.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL'd cache of users keyed by email, in front of {@code findByEmail}.
+ * <p>
+ * Holds detached copies only, so nothing a caller does to a returned user can be flushed back
+ * to the database. Entries are dropped by {@link UserCacheInvalidationListener} whenever a user
+ * is saved or deleted; the TTL only bounds staleness from writes made by other instances.
+ * Hit/miss counts are published as {@code cache.gets} with {@code cache=auth.user-details}.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, User> cache;
+    private final boolean enabled;
+
+    public UserDetailsCache(@Value("${security.user-cache.enabled:true}") boolean enabled,
+                            @Value("${security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${security.user-cache.ttl-sec:300}") long ttlSec,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSec))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.user-details");
+    }
+
+    public Optional<User> get(String email, Function<String, Optional<User>> loader) {
+        if (!enabled) return loader.apply(email);
+        User cached = cache.getIfPresent(email);
+        if (cached != null) return Optional.of(copyOf(cached));
+
+        Optional<User> loaded = loader.apply(email);
+        loaded.ifPresent(user -> cache.put(email, copyOf(user)));
+        return loaded.map(UserDetailsCache::copyOf);
+    }
+
+    /** Drops the entry for {@code email} and, in case the email itself changed, any entry for the same user id. */
+    public void invalidate(String userId, String email) {
+        if (email != null) cache.invalidate(email);
+        if (userId != null) cache.asMap().values().removeIf(u -> userId.equals(u.getId()));
+    }
+
+    private static User copyOf(User user) {
+        return User.builder()
+                .id(user.getId())
+                .domainId(user.getDomainId())
+                .email(user.getEmail())
+                .password(user.getPassword())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .role(user.getRole())
+                .status(user.getStatus())
+                .build();
+    }
+}
@@ -2,18 +2,21 @@ package com.healthcare.auth_service.service;
 
 import com.healthcare.auth_service.dto.AuthDtos.*;
 import com.healthcare.auth_service.entity.RefreshToken;
+import com.healthcare.auth_service.entity.RegistrationOutbox;
 import com.healthcare.auth_service.entity.Role;
 import com.healthcare.auth_service.entity.User;
+import com.healthcare.auth_service.entity.UserStatus;
 import com.healthcare.auth_service.exception.BadRequestException;
+import com.healthcare.auth_service.exception.ForbiddenException;
 import com.healthcare.auth_service.exception.NotFoundException;
 import com.healthcare.auth_service.repository.RefreshTokenRepository;
 import com.healthcare.auth_service.repository.UserRepository;
 import com.healthcare.auth_service.security.JwtHelper;
+import com.healthcare.auth_service.security.PasswordHashingExecutor;
+import com.healthcare.auth_service.security.TokenDigest;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.modelmapper.ModelMapper;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -21,144 +24,191 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
 public class AuthService {
 
+    private static final String INVALID_CREDENTIALS = "Invalid Username or Password !!";
+
     private final UserRepository userRepository;
     private final RefreshTokenRepository refreshTokenRepo;
     private final PasswordEncoder passwordEncoder;
-    private final ExternalDomainClient external;
+    private final ProfileCache profileCache;
     private final JwtHelper jwtHelper;
-    private final AuthenticationManager authenticationManager;
     private final UserDetailsService userDetailsService;
     private final ModelMapper modelMapper;
+    private final PasswordHashingExecutor hashing;
+    private final TokenRevocationService revocations;
+    private final RegistrationSaga registrationSaga;
+    private volatile String dummyPasswordHash;
 
 
     public AuthService(UserRepository userRepository,
                        RefreshTokenRepository refreshTokenRepo,
                        PasswordEncoder passwordEncoder,
-                       ExternalDomainClient external,
-                       JwtHelper jwtHelper, AuthenticationManager authenticationManager, UserDetailsService userDetailsService, ModelMapper modelMapper) {
+                       ProfileCache profileCache,
+                       JwtHelper jwtHelper, UserDetailsService userDetailsService, ModelMapper modelMapper,
+                       PasswordHashingExecutor hashing, TokenRevocationService revocations,
+                       RegistrationSaga registrationSaga) {
         this.userRepository = userRepository;
         this.refreshTokenRepo = refreshTokenRepo;
         this.passwordEncoder = passwordEncoder;
-        this.external = external;
+        this.profileCache = profileCache;
         this.jwtHelper = jwtHelper;
-        this.authenticationManager = authenticationManager;
         this.userDetailsService = userDetailsService;
         this.modelMapper = modelMapper;
+        this.hashing = hashing;
+        this.revocations = revocations;
+        this.registrationSaga = registrationSaga;
     }
 
-    @Transactional
+    // Registration is a saga (see RegistrationSaga): the user is stored PENDING with an outbox row and the
+    // domain record is created after commit, so no DB connection is held across the HTTP call.
     public RegisterResponse registerDoctor(RegisterDoctorRequest req){
-        if (userRepository.existsByEmail(req.getEmail())) throw new BadRequestException("Email already registered");
-        // Create domain first
-        String doctorId = external.registerDoctor(req.getDoctor());
-        if (doctorId == null) throw new BadRequestException("Failed to create doctor domain");
-
-        // create auth user
-        User u = User.builder()
-                .domainId(doctorId)
-                .email(req.getEmail())
-                .password(passwordEncoder.encode(req.getPassword()))
-                .role(Role.ROLE_DOCTOR)
-                .build();
-        userRepository.save(u);
-        return new RegisterResponse("Doctor registered", u.getId(), doctorId);
+        User u = register(req.getEmail(), req.getPassword(), Role.ROLE_DOCTOR, req.getDoctor());
+        return new RegisterResponse("Doctor registration accepted", u.getId(), null);
     }
 
-    @Transactional
     public RegisterResponse registerPatient(RegisterPatientRequest req){
-        if (userRepository.existsByEmail(req.getEmail())) throw new BadRequestException("Email already registered");
-        String patientId = external.registerPatient(req.getPatient());
-        if (patientId == null) throw new BadRequestException("Failed to create patient domain");
-
-
-        User u = User.builder()
-                .domainId(patientId)
-                .email(req.getEmail())
-                .password(passwordEncoder.encode(req.getPassword()))
-                .role(Role.ROLE_PATIENT)
-                .build();
-        userRepository.save(u);
-        return new RegisterResponse("Patient registered", u.getId(), patientId);
+        User u = register(req.getEmail(), req.getPassword(), Role.ROLE_PATIENT, req.getPatient());
+        return new RegisterResponse("Patient registration accepted", u.getId(), null);
     }
 
-    @Transactional
     public RegisterResponse registerAdmin(RegisterAdminRequest req){
-        if (userRepository.existsByEmail(req.getEmail())) throw new BadRequestException("Email already registered");
-        String adminId = external.registerAdmin(req.getAdmin());
-        if (adminId == null) throw new BadRequestException("Failed to create admin domain");
+        User u = register(req.getEmail(), req.getPassword(), Role.ROLE_ADMIN, req.getAdmin());
+        return new RegisterResponse("Admin registration accepted", u.getId(), null);
+    }
 
+    public RegistrationStatusResponse registrationStatus(String userId){
+        RegistrationOutbox row = registrationSaga.status(userId)
+                .orElseThrow(() -> new NotFoundException("Registration not found"));
+        String reason = row.getStatus() == RegistrationOutbox.Status.FAILED ? row.getLastError() : null;
+        return new RegistrationStatusResponse(userId, row.getStatus().name(), reason);
+    }
 
+    private User register(String email, String password, Role role, Object domainRequest){
+        if (userRepository.existsByEmail(email)) throw new BadRequestException("Email already registered");
         User u = User.builder()
-                .domainId(adminId)
-                .email(req.getEmail())
-                .password(passwordEncoder.encode(req.getPassword()))
-                .role(Role.ROLE_ADMIN)
+                .email(email)
+                .password(hashing.run(() -> passwordEncoder.encode(password)))
+                .role(role)
                 .build();
-        userRepository.save(u);
-        return new RegisterResponse("Admin registered", u.getId(), adminId);
+        return registrationSaga.start(u, domainRequest);
     }
 
 
-    @Transactional
+    // Single-query login: the user row loaded here is the one the password is checked against and the
+    // tokens are issued for, so no second/third findByEmail through the AuthenticationManager/UserDetailsService.
+    // Not @Transactional on purpose: no DB connection is held while the password is hashed.
+    // Unknown email and wrong password fail identically (status, message and one hash each).
     public LoginResponse login(LoginRequest req){
-        User u = userRepository.findByEmail(req.getEmail()).orElseThrow(() -> new NotFoundException("Invalid credentials"));
-        this.doAuthenticate(req.getEmail(),req.getPassword());
-        UserDetails userDetails = userDetailsService.loadUserByUsername(req.getEmail());
-        String token = jwtHelper.generateToken(userDetails);
-        String refresh = jwtHelper.createRefreshToken(userDetails);// if we pass userdetails then we can set roles in refreshToken, so thet if jwt token expired we can use refresh token at API Gateway side
-//        String refresh = jwtHelper.createRefreshToken(u.getId());
-
-        // persist refresh
-        RefreshToken rt = RefreshToken.builder()
-                .userId(u.getId())
-                .token(refresh)
-                .expiresAt(OffsetDateTime.now().plusSeconds( jwtHelper.refreshTtlSec() )) // need getter; we will add a helper
-                .build();
-        refreshTokenRepo.save(rt);
+        User u = userRepository.findByEmail(req.getEmail()).orElse(null);
+        if (u == null) {
+            // still pay for one hash so unknown emails are not distinguishable by response time
+            hashing.run(() -> passwordEncoder.matches(req.getPassword(), dummyPasswordHash()));
+            throw new BadRequestException(INVALID_CREDENTIALS);
+        }
+        if (!hashing.run(() -> passwordEncoder.matches(req.getPassword(), u.getPassword()))) {
+            throw new BadRequestException(INVALID_CREDENTIALS);
+        }
+        if (u.getStatus() == UserStatus.PENDING) {
+            throw new BadRequestException("Registration is still being processed, please try again shortly");
+        }
+        // work factor changed since this hash was stored: re-hash now that we know the raw password
+        if (passwordEncoder.upgradeEncoding(u.getPassword())) {
+            u.setPassword(hashing.run(() -> passwordEncoder.encode(req.getPassword())));
+            u.setUpdatedAt(OffsetDateTime.now());
+            userRepository.save(u);
+        }
+
+        String token = jwtHelper.generateToken(u);
+        String refresh = issueRefreshToken(u, UUID.randomUUID().toString()); // new login = new token family
 
         return new LoginResponse(token, refresh, "Bearer", jwtHelper.accessTtlSec());
     }
 
-    private void doAuthenticate(String email, String password) {
-        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(email,password);
-        try {
-            authenticationManager.authenticate(authenticationToken);
-        }catch (BadCredentialsException e){
-            throw new BadRequestException("Invalid Username or Password !!");
+    // if we pass userdetails then we can set roles in refreshToken, so thet if jwt token expired we can use refresh token at API Gateway side
+    private String issueRefreshToken(User u, String familyId) {
+        String refresh = jwtHelper.createRefreshToken(u);
+        refreshTokenRepo.save(RefreshToken.builder()
+                .userId(u.getId())
+                .tokenHash(TokenDigest.sha256(refresh))
+                .familyId(familyId)
+                .expiresAt(OffsetDateTime.now().plusSeconds( jwtHelper.refreshTtlSec() ))
+                .build());
+        return refresh;
+    }
+
+    private String dummyPasswordHash() {
+        String hash = dummyPasswordHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode("user-not-found-password");
+            dummyPasswordHash = hash;
         }
+        return hash;
     }
 
-    @Transactional
+    // Rotation: every refresh revokes the presented token and issues a new one in the same family.
+    // Presenting an already-rotated token means it was copied, so the whole family is revoked;
+    // noRollbackFor keeps that revocation when the BadRequestException is thrown.
+    @Transactional(noRollbackFor = BadRequestException.class)
     public RefreshResponse refresh(RefreshRequest req){
-        RefreshToken token = refreshTokenRepo.findByToken(req.getRefreshToken())
+        RefreshToken token = refreshTokenRepo.findByTokenHash(TokenDigest.sha256(req.getRefreshToken()))
                 .orElseThrow(() -> new NotFoundException("Refresh token not found"));
-        if (token.isRevoked() || token.getExpiresAt().isBefore(OffsetDateTime.now()))
+        OffsetDateTime now = OffsetDateTime.now();
+        if (token.isRevoked() || refreshTokenRepo.revokeIfActive(token.getId(), now) == 0) {
+            refreshTokenRepo.revokeFamily(token.getFamilyId(), now);
+            // whoever holds the copied token may also hold access tokens minted from it
+            if (token.isRevoked()) userRepository.findById(token.getUserId()).ifPresent(u -> revocations.revokeSubject(u.getEmail()));
+            throw new BadRequestException("Refresh token expired or revoked");
+        }
+        if (token.getExpiresAt().isBefore(now))
+            throw new BadRequestException("Refresh token expired or revoked");
+        try {
+            jwtHelper.getAllClaimsFromToken(req.getRefreshToken());
+        } catch (JwtException | IllegalArgumentException e) {
             throw new BadRequestException("Refresh token expired or revoked");
+        }
+
+        User u = userRepository.findById(token.getUserId()).orElseThrow(() -> new NotFoundException("User not found"));
+        String jwtToken = jwtHelper.generateToken(u);
+        String refresh = issueRefreshToken(u, token.getFamilyId());
+        return new RefreshResponse(jwtToken, refresh, jwtHelper.accessTtlSec());
+    }
+
+    // Revokes the presented access token at the gateway and, when given, the refresh token's family.
+    @Transactional
+    public void logout(String accessToken, LogoutRequest req){
+        Claims claims;
+        try {
+            claims = jwtHelper.getAllClaimsFromToken(accessToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadRequestException("Invalid access token");
+        }
+        // checked before revoking anything: a caller may only end its own refresh-token family
+        RefreshToken refresh = null;
+        if (req != null && req.getRefreshToken() != null) {
+            refresh = refreshTokenRepo.findByTokenHash(TokenDigest.sha256(req.getRefreshToken())).orElse(null);
+            if (refresh != null) {
+                String callerId = userRepository.findByEmail(claims.getSubject()).map(User::getId).orElse(null);
+                if (!refresh.getUserId().equals(callerId)) {
+                    throw new ForbiddenException("Refresh token does not belong to the caller");
+                }
+            }
+        }
 
-        String userId = jwtHelper.getAllClaimsFromToken(req.getRefreshToken()).getSubject();
-        User u = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found"));
+        if (claims.getId() != null) revocations.revokeToken(claims.getId(), claims.getExpiration().toInstant());
+        else revocations.revokeSubject(claims.getSubject()); // tokens minted before jti existed
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(u.getEmail());
-        String jwtToken = jwtHelper.generateToken(userDetails);
-        return new RefreshResponse(jwtToken, jwtHelper.accessTtlSec());
+        if (refresh != null) refreshTokenRepo.revokeFamily(refresh.getFamilyId(), OffsetDateTime.now());
     }
 
+    // Composed from the cached user and the cached domain profile; see ProfileCache for staleness.
     public ProfileResponse profile(String email){
         User u = modelMapper.map(userDetailsService.loadUserByUsername(email),User.class);
-        Map<String,Object> domainProfile = null;
-        if (u.getRole() == Role.ROLE_DOCTOR) {
-            domainProfile = external.fetchDoctorProfile(u.getDomainId());
-        } else if (u.getRole() == Role.ROLE_PATIENT){
-            domainProfile = external.fetchPatientProfile(u.getDomainId());
-        } else if (u.getRole() == Role.ROLE_ADMIN){
-            domainProfile = external.fetchAdminProfile(u.getDomainId());
-        }
+        Map<String,Object> domainProfile = profileCache.get(u.getRole(), u.getDomainId());
         return new ProfileResponse(u.getId(), u.getEmail(), u.getRole().name(), domainProfile);
     }
 
 }
-
@@ -2,6 +2,7 @@ package com.healthcare.auth_service.service;
 
 import com.healthcare.auth_service.entity.User;
 import com.healthcare.auth_service.repository.UserRepository;
+import com.healthcare.auth_service.security.UserDetailsCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -12,9 +13,11 @@ import org.springframework.stereotype.Service;
 public class CustomUserDetailService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private UserDetailsCache userDetailsCache;
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(username).orElseThrow(
+        User user = userDetailsCache.get(username, userRepository::findByEmail).orElseThrow(
                 () -> new UsernameNotFoundException("User with given email is not found..")
         );
         return user;
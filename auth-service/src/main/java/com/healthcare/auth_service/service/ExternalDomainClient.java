@@ -7,11 +7,15 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
 import java.util.Map;
 
 @Component
 public class ExternalDomainClient {
 
+    // domain services return the record already created for this key instead of a second one
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final WebClient doctorClient;
     private final WebClient patientClient;
     private final WebClient adminClient;
@@ -22,29 +26,31 @@ public class ExternalDomainClient {
         this.adminClient = adminClient;
     }
 
-    // register doctor -> returns domain id (string)
-    public String registerDoctor(DoctorDomain req) {
+    // register doctor -> returns domain id (string); gives up after timeout
+    public String registerDoctor(DoctorDomain req, String idempotencyKey, Duration timeout) {
         Map resp = doctorClient.post()
                 .uri("/doctors/register")
+                .header(IDEMPOTENCY_KEY, idempotencyKey)
                 .bodyValue(req)
                 .retrieve()
                 .bodyToMono(Map.class)
+                .timeout(timeout)
                 .block();
         // assume doctor-service returns { "id": "<uuid>", ...}
         return resp != null ? String.valueOf(resp.get("id")) : null;
     }
 
     // register patient -> returns domain id (string)
-    public String registerPatient(PatientDomain req) {
-        Map resp = patientClient.post().uri("/patients")
-                .bodyValue(req).retrieve().bodyToMono(Map.class).block();
+    public String registerPatient(PatientDomain req, String idempotencyKey, Duration timeout) {
+        Map resp = patientClient.post().uri("/patients").header(IDEMPOTENCY_KEY, idempotencyKey)
+                .bodyValue(req).retrieve().bodyToMono(Map.class).timeout(timeout).block();
         return resp != null ? String.valueOf(resp.get("id")) : null;
     }
 
     // register patient -> returns domain id (string)
-    public String registerAdmin(AdminDomain req) {
-        Map resp = adminClient.post().uri("/admins")
-                .bodyValue(req).retrieve().bodyToMono(Map.class).block();
+    public String registerAdmin(AdminDomain req, String idempotencyKey, Duration timeout) {
+        Map resp = adminClient.post().uri("/admins").header(IDEMPOTENCY_KEY, idempotencyKey)
+                .bodyValue(req).retrieve().bodyToMono(Map.class).timeout(timeout).block();
         return resp != null ? String.valueOf(resp.get("id")) : null;
     }
 
@@ -0,0 +1,87 @@
+package com.healthcare.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.healthcare.auth_service.entity.Role;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Domain profiles (doctor/patient/admin records) behind {@code /auth/me}, keyed by role and domain id.
+ * <p>
+ * An entry older than {@code refresh-after-sec} is still served while one background reload
+ * replaces it; if that reload fails the old value stays, so a slow or down domain service does not
+ * affect profile latency. Doctor and patient services announce changes on Kafka
+ * ({@link ProfileEventsListener}), which drops the entry right away. Hit/miss counts are published
+ * as {@code cache.gets} with {@code cache=auth.profile}.
+ */
+@Component
+public class ProfileCache {
+
+    private final ExternalDomainClient external;
+    private final LoadingCache<String, Map<String, Object>> cache;
+    private final ExecutorService refreshExecutor;
+    private final boolean enabled;
+
+    public ProfileCache(ExternalDomainClient external,
+                        @Value("${profile.cache.enabled:true}") boolean enabled,
+                        @Value("${profile.cache.max-size:10000}") long maxSize,
+                        @Value("${profile.cache.refresh-after-sec:60}") long refreshAfterSec,
+                        @Value("${profile.cache.expire-after-sec:3600}") long expireAfterSec,
+                        MeterRegistry meterRegistry) {
+        this.external = external;
+        this.enabled = enabled;
+        // reloads block on WebClient, so they get their own threads instead of the common pool
+        this.refreshExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "profile-cache-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(Duration.ofSeconds(refreshAfterSec))
+                .expireAfterWrite(Duration.ofSeconds(expireAfterSec))
+                .executor(refreshExecutor)
+                .recordStats()
+                .build(this::fetch);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.profile");
+    }
+
+    public Map<String, Object> get(Role role, String domainId) {
+        if (domainId == null) return null;
+        if (!enabled) return fetch(key(role, domainId));
+        return cache.get(key(role, domainId));
+    }
+
+    public void invalidate(Role role, String domainId) {
+        cache.invalidate(key(role, domainId));
+    }
+
+    private Map<String, Object> fetch(String key) {
+        int split = key.indexOf(':');
+        Role role = Role.valueOf(key.substring(0, split));
+        String domainId = key.substring(split + 1);
+        return switch (role) {
+            case ROLE_DOCTOR -> external.fetchDoctorProfile(domainId);
+            case ROLE_PATIENT -> external.fetchPatientProfile(domainId);
+            case ROLE_ADMIN -> external.fetchAdminProfile(domainId);
+        };
+    }
+
+    private static String key(Role role, String domainId) {
+        return role.name() + ':' + domainId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
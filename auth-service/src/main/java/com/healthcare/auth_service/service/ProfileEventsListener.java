@@ -0,0 +1,34 @@
+package com.healthcare.auth_service.service;
+
+import com.healthcare.auth_service.entity.Role;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached domain profiles when doctor-service or patient-service reports a change. Every
+ * auth instance consumes with its own group id so each one clears its local cache.
+ */
+@Component
+public class ProfileEventsListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileEventsListener.class);
+
+    private final ProfileCache profileCache;
+
+    public ProfileEventsListener(ProfileCache profileCache) {
+        this.profileCache = profileCache;
+    }
+
+    @KafkaListener(topics = {"doctor-profile-updated", "doctor-verified", "patient-profile-updated"},
+            containerFactory = "broadcastListenerContainerFactory")
+    public void onProfileChanged(@Payload String domainId, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+        Role role = topic.startsWith("doctor-") ? Role.ROLE_DOCTOR : Role.ROLE_PATIENT;
+        profileCache.invalidate(role, domainId.trim());
+        log.debug("Dropped cached profile {} {} after {}", role, domainId, topic);
+    }
+}
@@ -0,0 +1,90 @@
+package com.healthcare.auth_service.service;
+
+import com.healthcare.auth_service.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Deletes expired refresh tokens, and revoked ones once their retention has passed, in small
+ * batches ordered by id. Each batch is its own short transaction and the job sleeps between
+ * batches, so logins inserting into refresh_tokens never wait long on its locks.
+ */
+@Component
+public class RefreshTokenPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenPurger.class);
+
+    private final RefreshTokenRepository refreshTokenRepo;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pauseMs;
+    private final long revokedRetentionSec;
+    private final Counter purged;
+    private final Timer runTimer;
+
+    public RefreshTokenPurger(RefreshTokenRepository refreshTokenRepo,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${security.refresh-token-purge.enabled:true}") boolean enabled,
+                              @Value("${security.refresh-token-purge.batch-size:500}") int batchSize,
+                              @Value("${security.refresh-token-purge.pause-ms:200}") long pauseMs,
+                              @Value("${security.refresh-token-purge.revoked-retention-sec:86400}") long revokedRetentionSec) {
+        this.refreshTokenRepo = refreshTokenRepo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+        this.revokedRetentionSec = revokedRetentionSec;
+        this.purged = meterRegistry.counter("auth.refresh_tokens.purged");
+        this.runTimer = meterRegistry.timer("auth.refresh_tokens.purge.duration");
+    }
+
+    @Scheduled(fixedDelayString = "${security.refresh-token-purge.interval-ms:3600000}",
+            initialDelayString = "${security.refresh-token-purge.initial-delay-ms:60000}")
+    public void purge() {
+        if (!enabled) return;
+        Timer.Sample sample = Timer.start();
+        long total = purgeAll();
+        sample.stop(runTimer);
+        if (total > 0) log.info("Purged {} expired/revoked refresh tokens", total);
+    }
+
+    private long purgeAll() {
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime revokedBefore = now.minusSeconds(revokedRetentionSec);
+        long afterId = 0;
+        long total = 0;
+        while (true) {
+            final long from = afterId;
+            List<Long> ids = tx.execute(status -> {
+                List<Long> batch = refreshTokenRepo.findPurgeableIds(from, now, revokedBefore, PageRequest.of(0, batchSize));
+                if (!batch.isEmpty()) refreshTokenRepo.deleteByIdIn(batch);
+                return batch;
+            });
+            if (ids == null || ids.isEmpty()) return total;
+            total += ids.size();
+            purged.increment(ids.size());
+            if (ids.size() < batchSize) return total;
+            afterId = ids.get(ids.size() - 1);
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.healthcare.auth_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.auth_service.dto.AuthDtos.AdminDomain;
+import com.healthcare.auth_service.dto.AuthDtos.DoctorDomain;
+import com.healthcare.auth_service.dto.AuthDtos.PatientDomain;
+import com.healthcare.auth_service.entity.RegistrationOutbox;
+import com.healthcare.auth_service.entity.User;
+import com.healthcare.auth_service.entity.UserStatus;
+import com.healthcare.auth_service.repository.RegistrationOutboxRepository;
+import com.healthcare.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registration saga: the user row (PENDING) and an outbox row are committed together, then the
+ * doctor/patient/admin record is created over HTTP with no transaction open, and a second short
+ * transaction activates the user with the returned domain id.
+ * <p>
+ * Each registration is dispatched right after commit; a scheduled relay picks up anything that
+ * was not (full dispatch queue, crash, failed call) with exponential backoff; either way the call
+ * runs on the saga's own dispatcher, never on the shared scheduler thread. A 4xx from the domain
+ * service, or running out of attempts, compensates by deleting the PENDING user so the email can
+ * be registered again; the outbox row keeps the FAILED status and reason for {@link #status}.
+ * <p>
+ * Every attempt sends the user id as {@code Idempotency-Key} and the domain services return the
+ * record already created for it, so retrying a call that committed remotely but timed out or
+ * lost its response yields the same domain id rather than a duplicate or a 4xx that would
+ * compensate a user whose record exists.
+ */
+@Component
+public class RegistrationSaga {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrationSaga.class);
+
+    private final UserRepository userRepository;
+    private final RegistrationOutboxRepository outboxRepo;
+    private final ExternalDomainClient external;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final ThreadPoolExecutor dispatcher;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseSec;
+    private final Duration callTimeout;
+    private final Counter completed;
+    private final Counter retried;
+    private final Counter failed;
+
+    public RegistrationSaga(UserRepository userRepository,
+                            RegistrationOutboxRepository outboxRepo,
+                            ExternalDomainClient external,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${registration.saga.dispatch-threads:2}") int dispatchThreads,
+                            @Value("${registration.saga.batch-size:50}") int batchSize,
+                            @Value("${registration.saga.max-attempts:8}") int maxAttempts,
+                            @Value("${registration.saga.lease-sec:30}") long leaseSec,
+                            @Value("${registration.saga.call-timeout-ms:10000}") long callTimeoutMs) {
+        // a call still running when the lease ends would let a second worker create a duplicate record
+        if (callTimeoutMs <= 0 || callTimeoutMs >= TimeUnit.SECONDS.toMillis(leaseSec)) {
+            throw new IllegalStateException("registration.saga.call-timeout-ms must be positive and shorter than lease-sec");
+        }
+        this.userRepository = userRepository;
+        this.outboxRepo = outboxRepo;
+        this.external = external;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        // overflow is dropped on purpose: the row stays due and the scheduled relay sends it
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(256), r -> {
+                    Thread t = new Thread(r, "registration-saga");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseSec = leaseSec;
+        this.callTimeout = Duration.ofMillis(callTimeoutMs);
+        this.completed = meterRegistry.counter("auth.registration.saga", "outcome", "completed");
+        this.retried = meterRegistry.counter("auth.registration.saga", "outcome", "retried");
+        this.failed = meterRegistry.counter("auth.registration.saga", "outcome", "failed");
+    }
+
+    /** Saves {@code user} as PENDING together with its outbox row; returns the saved user. */
+    public User start(User user, Object domainRequest) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(domainRequest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+        user.setStatus(UserStatus.PENDING);
+        return tx.execute(status -> {
+            User saved = userRepository.save(user);
+            RegistrationOutbox row = outboxRepo.save(RegistrationOutbox.builder()
+                    .userId(saved.getId())
+                    .role(saved.getRole())
+                    .payload(payload)
+                    .nextAttemptAt(OffsetDateTime.now())
+                    .build());
+            Long id = row.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(id);
+                }
+            });
+            return saved;
+        });
+    }
+
+    private void dispatch(Long id) {
+        try {
+            dispatcher.execute(() -> process(id));
+        } catch (RejectedExecutionException e) {
+            log.debug("Registration {} left to the relay, dispatch queue full", id);
+        }
+    }
+
+    /** Latest saga row for {@code userId}; a FAILED row carries the reason in {@code lastError}. */
+    public Optional<RegistrationOutbox> status(String userId) {
+        return outboxRepo.findFirstByUserIdOrderByIdDesc(userId);
+    }
+
+    // only finds due rows; the HTTP calls run on the dispatcher so the scheduler thread is free
+    // for the other jobs. Rows still queued from the last run are skipped by the lease in claim().
+    @Scheduled(fixedDelayString = "${registration.saga.relay-interval-ms:5000}")
+    public void relay() {
+        for (Long id : outboxRepo.findDueIds(OffsetDateTime.now(), PageRequest.of(0, batchSize))) {
+            dispatch(id);
+        }
+    }
+
+    private void process(Long id) {
+        OffsetDateTime now = OffsetDateTime.now();
+        Integer claimed = tx.execute(status -> outboxRepo.claim(id, now, now.plusSeconds(leaseSec)));
+        if (claimed == null || claimed == 0) return; // someone else has it, or it is not due
+        RegistrationOutbox row = outboxRepo.findById(id).orElse(null);
+        if (row == null) return;
+
+        String domainId;
+        try {
+            domainId = createDomainRecord(row); // remote call, no DB connection held
+        } catch (WebClientResponseException e) {
+            if (e.getStatusCode().is4xxClientError()) {
+                fail(row, e.getStatusCode() + " " + e.getResponseBodyAsString());
+            } else {
+                retryOrFail(row, e.toString());
+            }
+            return;
+        } catch (Exception e) {
+            retryOrFail(row, e.toString());
+            return;
+        }
+        if (domainId == null || "null".equals(domainId)) {
+            retryOrFail(row, "domain service returned no id");
+            return;
+        }
+        complete(row, domainId);
+    }
+
+    private String createDomainRecord(RegistrationOutbox row) throws JsonProcessingException {
+        return switch (row.getRole()) {
+            case ROLE_DOCTOR -> external.registerDoctor(objectMapper.readValue(row.getPayload(), DoctorDomain.class), row.getUserId(), callTimeout);
+            case ROLE_PATIENT -> external.registerPatient(objectMapper.readValue(row.getPayload(), PatientDomain.class), row.getUserId(), callTimeout);
+            case ROLE_ADMIN -> external.registerAdmin(objectMapper.readValue(row.getPayload(), AdminDomain.class), row.getUserId(), callTimeout);
+        };
+    }
+
+    private void complete(RegistrationOutbox row, String domainId) {
+        tx.executeWithoutResult(status -> {
+            userRepository.findById(row.getUserId()).ifPresent(u -> {
+                u.setDomainId(domainId);
+                u.setStatus(UserStatus.ACTIVE);
+                u.setUpdatedAt(OffsetDateTime.now());
+                userRepository.save(u);
+            });
+            row.setStatus(RegistrationOutbox.Status.DONE);
+            row.setLastError(null);
+            outboxRepo.save(row);
+        });
+        completed.increment();
+    }
+
+    private void retryOrFail(RegistrationOutbox row, String error) {
+        if (row.getAttempts() >= maxAttempts) {
+            fail(row, error);
+            return;
+        }
+        long backoffSec = Math.min(300, 1L << Math.min(row.getAttempts(), 8));
+        tx.executeWithoutResult(status -> {
+            row.setNextAttemptAt(OffsetDateTime.now().plusSeconds(backoffSec));
+            row.setLastError(truncate(error));
+            outboxRepo.save(row);
+        });
+        retried.increment();
+        log.warn("Registration {} attempt {} failed, retrying in {}s: {}", row.getId(), row.getAttempts(), backoffSec, error);
+    }
+
+    // compensation: drop the PENDING user so the email is free again
+    private void fail(RegistrationOutbox row, String error) {
+        tx.executeWithoutResult(status -> {
+            userRepository.findById(row.getUserId()).ifPresent(userRepository::delete);
+            row.setStatus(RegistrationOutbox.Status.FAILED);
+            row.setLastError(truncate(error));
+            outboxRepo.save(row);
+        });
+        failed.increment();
+        log.warn("Registration {} for user {} failed permanently: {}", row.getId(), row.getUserId(), error);
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 500 ? error : error.substring(0, 500);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+}
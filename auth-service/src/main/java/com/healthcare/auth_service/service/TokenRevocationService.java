@@ -0,0 +1,199 @@
+package com.healthcare.auth_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.healthcare.auth_service.entity.TokenRevocation;
+import com.healthcare.auth_service.repository.TokenRevocationRepository;
+import com.healthcare.auth_service.security.JwtHelper;
+import com.healthcare.auth_service.security.RevocationBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Source of truth for revoked access tokens. Revocations are stored in token_revocations and the
+ * live set is published to {@value #TOPIC} as one snapshot: a bloom filter for the gateway's
+ * per-request check plus the exact entries it confirms positives against.
+ * <p>
+ * Every instance rebuilds the snapshot from the DB, so whichever instance publishes last, the
+ * content is the same. A committed revocation only marks the snapshot dirty; a short scheduled
+ * flush rebuilds it once for all revocations since the last one (a logout storm costs one
+ * rebuild per interval, not one per logout). A slower periodic publish lets a restarted
+ * gateway catch up.
+ * <p>
+ * A snapshot larger than {@code max-message-bytes} is sent as parts under their own keys
+ * ({@code snapshot-0}, {@code snapshot-1}, ...) so compaction keeps each of them; gateways apply
+ * it once every part of that generation has arrived.
+ */
+@Service
+public class TokenRevocationService {
+
+    public static final String TOPIC = "token-revocations";
+    private static final String SNAPSHOT_KEY = "snapshot";
+    /** Room left in each part for the envelope around the Base64 data. */
+    private static final int PART_ENVELOPE_BYTES = 256;
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final TokenRevocationRepository revocationRepo;
+    private final KafkaTemplate<String, String> kafka;
+    private final ObjectMapper objectMapper;
+    private final JwtHelper jwtHelper;
+    private final double falsePositiveRate;
+    private final int maxMessageBytes;
+    private final long sendTimeoutMs;
+    private final Counter published;
+    private final Counter failed;
+    private final AtomicInteger entries = new AtomicInteger();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public TokenRevocationService(TokenRevocationRepository revocationRepo,
+                                  KafkaTemplate<String, String> kafka,
+                                  ObjectMapper objectMapper,
+                                  JwtHelper jwtHelper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${security.revocation.max-message-bytes:900000}") int maxMessageBytes,
+                                  @Value("${security.revocation.send-timeout-ms:5000}") long sendTimeoutMs) {
+        if (maxMessageBytes <= PART_ENVELOPE_BYTES * 2) {
+            throw new IllegalStateException("security.revocation.max-message-bytes must be larger than " + PART_ENVELOPE_BYTES * 2);
+        }
+        this.revocationRepo = revocationRepo;
+        this.kafka = kafka;
+        this.objectMapper = objectMapper;
+        this.jwtHelper = jwtHelper;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxMessageBytes = maxMessageBytes;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.published = meterRegistry.counter("auth.revocation.snapshots.published");
+        this.failed = meterRegistry.counter("auth.revocation.snapshots.failed");
+        meterRegistry.gauge("auth.revocation.entries", entries);
+    }
+
+    /** Revokes a single access token until it would have expired anyway. */
+    @Transactional
+    public void revokeToken(String jti, Instant expiresAt) {
+        upsert(TokenRevocation.Type.TOKEN, jti, OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC));
+    }
+
+    /** Revokes every access token issued to {@code subject} up to now. */
+    @Transactional
+    public void revokeSubject(String subject) {
+        upsert(TokenRevocation.Type.SUBJECT, subject, OffsetDateTime.now().plusSeconds(jwtHelper.accessTtlSec()));
+    }
+
+    private void upsert(TokenRevocation.Type type, String value, OffsetDateTime expiresAt) {
+        OffsetDateTime now = OffsetDateTime.now();
+        TokenRevocation revocation = revocationRepo.findByTypeAndValue(type, value)
+                .orElseGet(() -> TokenRevocation.builder().type(type).value(value).build());
+        revocation.setRevokedAt(now);
+        revocation.setExpiresAt(expiresAt);
+        revocationRepo.save(revocation);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dirty.set(true);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.flush-interval-ms:250}")
+    public void publishIfDirty() {
+        if (dirty.getAndSet(false)) publish();
+    }
+
+    // synchronized: the flush and the periodic publish run on different scheduler threads, and a
+    // snapshot read earlier must never be sent after (and so replace) one read later
+    @Scheduled(fixedDelayString = "${security.revocation.publish-interval-ms:10000}")
+    public synchronized void publish() {
+        try {
+            // stamped before the read: a snapshot with a later stamp has seen every revocation this one has
+            long generatedAt = System.currentTimeMillis();
+            List<TokenRevocation> active = revocationRepo.findByExpiresAtAfter(OffsetDateTime.now());
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            for (String[] message : messages(snapshot(active, generatedAt), generatedAt)) {
+                sends.add(kafka.send(TOPIC, message[0], message[1]));
+            }
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            entries.set(active.size());
+            published.increment();
+        } catch (Exception e) {
+            // retried on the next flush; gateways keep their previous snapshot meanwhile
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            failed.increment();
+            dirty.set(true);
+            log.error("Could not publish token revocation snapshot: {}", e.toString());
+        }
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${security.revocation.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = revocationRepo.deleteExpired(OffsetDateTime.now());
+        if (deleted > 0) log.info("Purged {} expired token revocations", deleted);
+    }
+
+    /** {@code [key, value]} pairs: the snapshot itself if it fits in one message, else its parts. */
+    private List<String[]> messages(String snapshot, long generatedAt) throws JsonProcessingException {
+        byte[] bytes = snapshot.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxMessageBytes) return List.<String[]>of(new String[]{SNAPSHOT_KEY, snapshot});
+
+        int partBytes = (maxMessageBytes - PART_ENVELOPE_BYTES) / 4 * 3; // raw bytes per part, before Base64
+        int parts = (bytes.length + partBytes - 1) / partBytes;
+        List<String[]> messages = new ArrayList<>(parts);
+        for (int i = 0; i < parts; i++) {
+            ObjectNode part = objectMapper.createObjectNode();
+            // no generatedAt field: gateways that predate parts read 0 and ignore the message
+            part.put("partOf", generatedAt);
+            part.put("part", i);
+            part.put("parts", parts);
+            part.put("data", Base64.getEncoder().encodeToString(
+                    Arrays.copyOfRange(bytes, i * partBytes, Math.min(bytes.length, (i + 1) * partBytes))));
+            messages.add(new String[]{SNAPSHOT_KEY + "-" + i, objectMapper.writeValueAsString(part)});
+        }
+        return messages;
+    }
+
+    private String snapshot(List<TokenRevocation> active, long generatedAt) throws JsonProcessingException {
+        RevocationBloomFilter bloom = RevocationBloomFilter.create(active.size(), falsePositiveRate);
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode tokens = root.putObject("tokens");     // jti -> exp (epoch sec)
+        ObjectNode subjects = root.putObject("subjects"); // email -> revokedAt (epoch sec)
+        for (TokenRevocation r : active) {
+            if (r.getType() == TokenRevocation.Type.TOKEN) {
+                bloom.put("jti:" + r.getValue());
+                tokens.put(r.getValue(), r.getExpiresAt().toEpochSecond());
+            } else {
+                bloom.put("sub:" + r.getValue());
+                subjects.put(r.getValue(), r.getRevokedAt().toEpochSecond());
+            }
+        }
+        root.put("generatedAt", generatedAt);
+        root.put("numHashes", bloom.numHashes());
+        root.put("bloom", Base64.getEncoder().encodeToString(bloom.toBytes()));
+        return objectMapper.writeValueAsString(root);
+    }
+}
@@ -0,0 +1,68 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Moves refresh_tokens from the raw {@code token} column to {@code token_hash}/{@code family_id}.
+ * <p>
+ * Java rather than SQL because it has to be conditional: on a fresh database the table does not
+ * exist yet (Hibernate creates it in its final shape after Flyway runs), and MySQL has no
+ * {@code ADD COLUMN IF NOT EXISTS}. Existing tokens keep working: MySQL's SHA2 produces the same
+ * lower-case hex as TokenDigest, and each old token becomes its own family.
+ */
+public class V1__hash_refresh_tokens extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!columnExists(connection, "refresh_tokens", "token")) return; // fresh schema or already migrated
+
+        try (Statement st = connection.createStatement()) {
+            if (!columnExists(connection, "refresh_tokens", "token_hash")) {
+                st.execute("ALTER TABLE refresh_tokens ADD COLUMN token_hash CHAR(64) NULL");
+            }
+            if (!columnExists(connection, "refresh_tokens", "family_id")) {
+                st.execute("ALTER TABLE refresh_tokens ADD COLUMN family_id VARCHAR(36) NULL");
+            }
+            st.execute("UPDATE refresh_tokens SET token_hash = SHA2(token, 256) "
+                    + "WHERE (token_hash IS NULL OR token_hash = '') AND token IS NOT NULL AND token <> ''");
+            st.execute("UPDATE refresh_tokens SET family_id = UUID() WHERE family_id IS NULL OR family_id = ''");
+            st.execute("DELETE FROM refresh_tokens WHERE token_hash IS NULL OR token_hash = ''");
+            // the same JWT could be stored twice (same user and second); keep the oldest row
+            st.execute("DELETE t1 FROM refresh_tokens t1 JOIN refresh_tokens t2 "
+                    + "ON t1.token_hash = t2.token_hash AND t1.id > t2.id");
+
+            st.execute("ALTER TABLE refresh_tokens "
+                    + "MODIFY token_hash CHAR(64) NOT NULL, "
+                    + "MODIFY family_id VARCHAR(36) NOT NULL, "
+                    + "DROP COLUMN token");
+            if (!indexExists(connection, "refresh_tokens", "uk_refresh_token_hash")) {
+                st.execute("CREATE UNIQUE INDEX uk_refresh_token_hash ON refresh_tokens (token_hash)");
+            }
+            if (!indexExists(connection, "refresh_tokens", "idx_refresh_token_family")) {
+                st.execute("CREATE INDEX idx_refresh_token_family ON refresh_tokens (family_id)");
+            }
+        }
+    }
+
+    private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            return rs.next();
+        }
+    }
+
+    private static boolean indexExists(Connection connection, String table, String index) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,164 @@
+package com.healthcare.auth_service.benchmark;
+
+import com.healthcare.auth_service.dto.AuthDtos.LoginRequest;
+import com.healthcare.auth_service.dto.AuthDtos.LoginResponse;
+import com.healthcare.auth_service.entity.RefreshToken;
+import com.healthcare.auth_service.entity.Role;
+import com.healthcare.auth_service.entity.User;
+import com.healthcare.auth_service.repository.RefreshTokenRepository;
+import com.healthcare.auth_service.repository.UserRepository;
+import com.healthcare.auth_service.security.JwtHelper;
+import com.healthcare.auth_service.security.PasswordHashingExecutor;
+import com.healthcare.auth_service.security.TokenDigest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.healthcare.auth_service.service.AuthService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.lang.reflect.Proxy;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logins/s of the single-query {@link AuthService#login} against the previous flow
+ * (findByEmail, AuthenticationManager, loadUserByUsername), under concurrent load.
+ * Repositories are stubs that park for {@code queryLatencyMicros} per call to stand in for a
+ * database round trip, so the difference shows what the extra queries cost once the pool is busy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LoginBenchmark {
+
+    private static final String EMAIL = "patient@example.com";
+    private static final String PASSWORD = "correct-horse-battery-staple";
+
+    @Param({"0", "500"})
+    public long queryLatencyMicros;
+
+    /** 4 isolates query overhead; 10 is the production default. */
+    @Param({"4", "10"})
+    public int bcryptStrength;
+
+    private AuthService authService;
+    private AuthenticationManager authenticationManager;
+    private UserDetailsService userDetailsService;
+    private UserRepository userRepository;
+    private RefreshTokenRepository refreshTokenRepository;
+    private JwtHelper jwtHelper;
+    private PasswordHashingExecutor hashing;
+    private LoginRequest request;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder encoder = new BCryptPasswordEncoder(bcryptStrength);
+        User user = User.builder()
+                .id("6f1c1a52-2f8e-4a0a-9a53-0b3a5b1f0c11")
+                .domainId("42")
+                .email(EMAIL)
+                .password(encoder.encode(PASSWORD))
+                .role(Role.ROLE_PATIENT)
+                .build();
+
+        userRepository = stub(UserRepository.class, (method, args) -> switch (method) {
+            case "findByEmail" -> EMAIL.equals(args[0]) ? Optional.of(user) : Optional.empty();
+            default -> throw new UnsupportedOperationException(method);
+        });
+        refreshTokenRepository = stub(RefreshTokenRepository.class, (method, args) -> switch (method) {
+            case "save" -> args[0];
+            default -> throw new UnsupportedOperationException(method);
+        });
+        jwtHelper = new JwtHelper("benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret-0123456789", 900, 604800);
+
+        userDetailsService = email -> userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User with given email is not found.."));
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+        authenticationManager = new ProviderManager(provider);
+
+        // queue large enough for all benchmark threads so nothing is shed
+        hashing = new PasswordHashingExecutor(0, 64, 5000, new SimpleMeterRegistry());
+        authService = new AuthService(userRepository, refreshTokenRepository, encoder, null, jwtHelper, userDetailsService, null, hashing, null, null);
+        request = new LoginRequest(EMAIL, PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hashing.shutdown();
+    }
+
+    @Benchmark
+    public LoginResponse singleQueryLogin() {
+        return authService.login(request);
+    }
+
+    /** The login flow before the single-query change, reproduced step by step. */
+    @Benchmark
+    public LoginResponse previousLogin() {
+        User u = userRepository.findByEmail(request.getEmail()).orElseThrow();
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
+        String token = jwtHelper.generateToken(userDetails);
+        String refresh = jwtHelper.createRefreshToken(userDetails);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .userId(u.getId())
+                .tokenHash(TokenDigest.sha256(refresh))
+                .familyId(u.getId())
+                .expiresAt(OffsetDateTime.now().plusSeconds(jwtHelper.refreshTtlSec()))
+                .build());
+        return new LoginResponse(token, refresh, "Bearer", jwtHelper.accessTtlSec());
+    }
+
+    private interface Answer {
+        Object apply(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T stub(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName() + "Stub";
+                };
+            }
+            if (queryLatencyMicros > 0) LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(queryLatencyMicros));
+            return answer.apply(method.getName(), args);
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LoginBenchmark.class.getSimpleName()).build()).run();
+    }
+}
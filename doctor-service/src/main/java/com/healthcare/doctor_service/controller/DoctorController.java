@@ -23,10 +23,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.*;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 //import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
@@ -54,8 +58,9 @@ public class DoctorController {
     )
     @ApiResponse(responseCode = "200", description = "Doctor registered successfully")
     @PostMapping("/register")
-    public DoctorDtos.DoctorResponse register(@Valid @RequestBody RegisterDoctorRequest req){
-        Doctor d = doctorService.register(req);
+    public DoctorDtos.DoctorResponse register(@Valid @RequestBody RegisterDoctorRequest req,
+                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
+        Doctor d = doctorService.register(req, idempotencyKey);
         return Mappers.toDoctorResponse(d);
     }
 
@@ -162,6 +167,46 @@ public class DoctorController {
         return ResponseEntity.ok(Map.of("updated", req.slotIds().size(),"blocked", req.blocked()));
     }
 
+    @Operation(
+            summary = "Claim availability slot",
+            description = "Atomically blocks a free slot for a booking. Used by appointment-service; " +
+                    "of concurrent claims on one slot exactly one succeeds. Repeating a claim with the same " +
+                    "claimToken succeeds again, so callers can retry after a lost response."
+    )
+    @ApiResponse(responseCode = "200", description = "Slot claimed")
+    @ApiResponse(responseCode = "409", description = "Slot already taken, or changed since expectedVersion")
+    @PostMapping("/{doctorId}/availability/slots/{slotId}/claim")
+    public ResponseEntity<?> claim(@PathVariable String doctorId, @PathVariable String slotId,
+                                   @RequestBody(required = false) ClaimSlotRequest req){
+        boolean claimed = availabilityService.claimSlot(doctorId, slotId,
+                req == null ? null : req.expectedVersion(), req == null ? null : req.claimToken());
+        return ResponseEntity.status(claimed ? HttpStatus.OK : HttpStatus.CONFLICT)
+                .body(Map.of("slotId", slotId, "claimed", claimed));
+    }
+
+    @Operation(
+            summary = "Release claimed slot",
+            description = "Frees a slot claimed with the given claimToken. Used by appointment-service to undo a " +
+                    "claim whose outcome it could not confirm; a slot held by another claim is left alone."
+    )
+    @ApiResponse(responseCode = "200", description = "Slot released")
+    @ApiResponse(responseCode = "409", description = "Slot is not held by this claimToken")
+    @PostMapping("/{doctorId}/availability/slots/{slotId}/release")
+    public ResponseEntity<?> release(@PathVariable String doctorId, @PathVariable String slotId,
+                                     @RequestBody ClaimSlotRequest req){
+        boolean released = availabilityService.releaseSlot(doctorId, slotId, req.claimToken());
+        return ResponseEntity.status(released ? HttpStatus.OK : HttpStatus.CONFLICT)
+                .body(Map.of("slotId", slotId, "released", released));
+    }
+
+    @Operation(summary = "Find availability slot", description = "Slot of the doctor starting at the given date and time")
+    @GetMapping("/{doctorId}/availability/slots/lookup")
+    public SlotResponse findSlot(@PathVariable String doctorId,
+                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime){
+        return Mappers.toSlotResponse(availabilityService.findSlot(doctorId, date, startTime));
+    }
+
     // ---- Appointments (via appointment-service) ----
 
     @Operation(summary = "Upcoming appointments", description = "List of upcoming appointments for doctor")
@@ -16,8 +16,11 @@ public class AvailabilityDtos {
 
     public record SlotResponse(
             String id, LocalDate date, LocalTime startTime, LocalTime endTime,
-            String mode, boolean blocked
+            String mode, boolean blocked, long version
     ) {}
 
     public record ToggleBlockRequest(@NotNull List<String> slotIds, boolean blocked) {}
+
+    /** {@code expectedVersion} is optional; when set the claim also fails if the slot changed since it was read. */
+    public record ClaimSlotRequest(Long expectedVersion, String claimToken) {}
 }
@@ -6,6 +6,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
+// the unique key's (doctor_id, date, startTime) prefix also serves lookups by slot start
 @Table(name = "availability_slots",
         uniqueConstraints = @UniqueConstraint(columnNames={"doctor_id","date","startTime","endTime"}))
 @Getter
@@ -26,4 +27,9 @@ public class AvailabilitySlot {
     @Column(nullable=false)
     private String mode; // ONLINE | CLINIC | HOME
     private boolean blocked = false;
+    @Column(length = 64)
+    private String claimedBy; // token of the booking that claimed the slot, so a retried claim is recognised
+
+    @Version
+    private long version; // bumped by every change, including AvailabilitySlotRepository.claim
 }
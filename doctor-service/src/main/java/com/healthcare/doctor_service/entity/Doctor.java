@@ -26,6 +26,10 @@ public class Doctor {
     @Column(unique = true, nullable = false)
     private String licenseNumber;
 
+    // auth-service user id sent as Idempotency-Key, so a retried registration finds this row
+    @Column(unique = true, updatable = false, length = 64)
+    private String registrationKey;
+
     @ElementCollection
     @CollectionTable(name = "doctor_clinics", joinColumns = @JoinColumn(name = "doctor_id"))
     @Column(name = "address")
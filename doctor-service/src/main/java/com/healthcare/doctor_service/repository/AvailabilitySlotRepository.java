@@ -4,11 +4,38 @@ package com.healthcare.doctor_service.repository;
 import com.healthcare.doctor_service.entity.AvailabilitySlot;
 import com.healthcare.doctor_service.entity.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface AvailabilitySlotRepository extends JpaRepository<AvailabilitySlot, String> {
     List<AvailabilitySlot> findByDoctorAndDateOrderByStartTime(Doctor doctor, LocalDate date);
     List<AvailabilitySlot> findByDoctorIdOrderByDateAscStartTimeAsc(String doctorId);
+
+    Optional<AvailabilitySlot> findFirstByDoctorIdAndDateAndStartTime(String doctorId, LocalDate date, LocalTime startTime);
+
+    Optional<AvailabilitySlot> findByIdAndDoctorId(String id, String doctorId);
+
+    /**
+     * Blocks the slot only if it is still free (and, when given, still at {@code expectedVersion}).
+     * One conditional UPDATE, so of two concurrent claims exactly one gets 1 back.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update AvailabilitySlot s set s.blocked = true, s.claimedBy = :claimToken, s.version = s.version + 1 " +
+            "where s.id = :slotId and s.doctor.id = :doctorId and s.blocked = false " +
+            "and (:expectedVersion is null or s.version = :expectedVersion)")
+    int claim(@Param("doctorId") String doctorId, @Param("slotId") String slotId,
+              @Param("expectedVersion") Long expectedVersion, @Param("claimToken") String claimToken);
+
+    /** Frees the slot only if it is still held by {@code claimToken}, never someone else's claim. */
+    @Modifying(clearAutomatically = true)
+    @Query("update AvailabilitySlot s set s.blocked = false, s.claimedBy = null, s.version = s.version + 1 " +
+            "where s.id = :slotId and s.doctor.id = :doctorId and s.blocked = true and s.claimedBy = :claimToken")
+    int release(@Param("doctorId") String doctorId, @Param("slotId") String slotId,
+                @Param("claimToken") String claimToken);
 }
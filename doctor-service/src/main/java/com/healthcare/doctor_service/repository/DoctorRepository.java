@@ -4,7 +4,10 @@ import com.healthcare.doctor_service.entity.Doctor;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, String>, JpaSpecificationExecutor<Doctor> {
     boolean existsByLicenseNumber(String licenseNumber);
+    Optional<Doctor> findByRegistrationKey(String registrationKey);
 }
\ No newline at end of file
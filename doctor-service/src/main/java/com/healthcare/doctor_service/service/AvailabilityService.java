@@ -11,6 +11,7 @@ import com.healthcare.doctor_service.service.messaging.DoctorEventsProducer;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -50,12 +51,45 @@ public class AvailabilityService {
         return repo.findByDoctorIdOrderByDateAscStartTimeAsc(doctorId);
     }
 
+    public AvailabilitySlot findSlot(String doctorId, LocalDate date, LocalTime startTime){
+        return repo.findFirstByDoctorIdAndDateAndStartTime(doctorId, date, startTime)
+                .orElseThrow(() -> new NotFoundException("Slot not found"));
+    }
+
+    /**
+     * @return true if the slot is now held by {@code claimToken} (including a retry of a claim that already
+     *         landed), false if it was taken by someone else or changed since {@code expectedVersion}
+     */
+    @Transactional
+    public boolean claimSlot(String doctorId, String slotId, Long expectedVersion, String claimToken){
+        if (repo.claim(doctorId, slotId, expectedVersion, claimToken) == 1) {
+            producer.sendAvailabilityUpdated(doctorId);
+            return true;
+        }
+        AvailabilitySlot s = repo.findByIdAndDoctorId(slotId, doctorId)
+                .orElseThrow(() -> new NotFoundException("Slot not found: "+slotId));
+        return claimToken != null && s.isBlocked() && claimToken.equals(s.getClaimedBy());
+    }
+
+    /** @return true if the slot was held by {@code claimToken} and is free again */
+    @Transactional
+    public boolean releaseSlot(String doctorId, String slotId, String claimToken){
+        if (claimToken == null || claimToken.isBlank()) throw new BadRequestException("claimToken is required");
+        if (repo.release(doctorId, slotId, claimToken) == 1) {
+            producer.sendAvailabilityUpdated(doctorId);
+            return true;
+        }
+        repo.findByIdAndDoctorId(slotId, doctorId).orElseThrow(() -> new NotFoundException("Slot not found: "+slotId));
+        return false;
+    }
+
     @Transactional
     public void blockSlots(String doctorId, List<String> slotIds, boolean blocked){
         for (String id : slotIds) {
             AvailabilitySlot s = repo.findById(id).orElseThrow(() -> new NotFoundException("Slot not found: "+id));
             if (!s.getDoctor().getId().equals(doctorId)) throw new BadRequestException("Slot does not belong to doctor");
             s.setBlocked(blocked);
+            if (!blocked) s.setClaimedBy(null);
             repo.save(s);
         }
         producer.sendAvailabilityUpdated(doctorId);
@@ -12,6 +12,8 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Optional;
+
 @Service
 public class DoctorService {
     private final DoctorRepository repo;
@@ -22,7 +24,12 @@ public class DoctorService {
     }
 
     @Transactional
-    public Doctor register(RegisterDoctorRequest req){
+    public Doctor register(RegisterDoctorRequest req, String registrationKey){
+        // a retried call whose first attempt committed gets the same doctor back, not a 400
+        if (registrationKey != null) {
+            Optional<Doctor> existing = repo.findByRegistrationKey(registrationKey);
+            if (existing.isPresent()) return existing.get();
+        }
         if (repo.existsByLicenseNumber(req.licenseNumber()))
             throw new BadRequestException("License already registered");
         Doctor d = new Doctor();
@@ -35,6 +42,7 @@ public class DoctorService {
         d.setLicenseNumber(req.licenseNumber());
         if (req.clinicAddresses()!=null) d.getClinicAddresses().addAll(req.clinicAddresses());
         d.setStatus(Doctor.Status.PENDING);
+        d.setRegistrationKey(registrationKey);
         repo.save(d);
         producer.sendDoctorRegistered(d.getId());
         return d;
@@ -54,7 +62,9 @@ public class DoctorService {
         Doctor d = repo.findById(doctorId).orElseThrow(() -> new NotFoundException("Doctor not found"));
         if (d.getStatus() == Doctor.Status.PENDING) throw new BadRequestException("Doctor not verified");
         d.setStatus(active ? Doctor.Status.ACTIVE : Doctor.Status.INACTIVE);
-        return repo.save(d);
+        repo.save(d);
+        producer.sendProfileUpdated(d.getId());
+        return d;
     }
 
 //    @Transactional
@@ -93,7 +103,9 @@ public class DoctorService {
         }
         if (req.about() != null) d.setAbout(req.about());
 
-        return repo.save(d);
+        repo.save(d);
+        producer.sendProfileUpdated(d.getId());
+        return d;
     }
 
     public Page<Doctor> search(String name, String specialization, String city, Double minRating, Pageable pageable) {
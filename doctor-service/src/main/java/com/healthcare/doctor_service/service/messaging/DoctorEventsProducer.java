@@ -2,7 +2,10 @@ package com.healthcare.doctor_service.service.messaging;
 
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+// all doctor events are keyed by doctorId so each doctor's events stay in order
 @Component
 public class DoctorEventsProducer {
     private final KafkaTemplate<String, String> kafka;
@@ -11,12 +14,30 @@ public class DoctorEventsProducer {
     }
 
     public void sendDoctorRegistered(String doctorId){
-        kafka.send("doctor-registered", doctorId);
+        send("doctor-registered", doctorId);
     }
     public void sendDoctorVerified(String doctorId){
-        kafka.send("doctor-verified", doctorId);
+        send("doctor-verified", doctorId);
     }
     public void sendAvailabilityUpdated(String doctorId){
-        kafka.send("doctor-availability-updated", doctorId);
+        send("doctor-availability-updated", doctorId);
+    }
+    public void sendProfileUpdated(String doctorId){
+        send("doctor-profile-updated", doctorId);
+    }
+
+    // inside a transaction, wait for the commit: a consumer that reloads the doctor (or a cache that
+    // is purged) before then would see the old row, and a rollback must not publish anything
+    private void send(String topic, String doctorId){
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    kafka.send(topic, doctorId, doctorId);
+                }
+            });
+        } else {
+            kafka.send(topic, doctorId, doctorId);
+        }
     }
 }
@@ -17,7 +17,7 @@ public class Mappers {
         );
     }
     public static SlotResponse toSlotResponse(AvailabilitySlot s){
-        return new SlotResponse(s.getId(), s.getDate(), s.getStartTime(), s.getEndTime(), s.getMode(), s.isBlocked());
+        return new SlotResponse(s.getId(), s.getDate(), s.getStartTime(), s.getEndTime(), s.getMode(), s.isBlocked(), s.getVersion());
     }
     public static PrescriptionResponse toPrescriptionResponse(Prescription p){
         return new PrescriptionResponse(p.getId(), p.getAppointmentId(), p.getPatientId(),
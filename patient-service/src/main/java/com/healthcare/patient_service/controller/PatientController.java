@@ -49,8 +49,9 @@ public class PatientController {
 
     @Operation(summary = "Create patient profile", description = "Register a new patient")
     @PostMapping
-    public ResponseEntity<PatientDtos.PatientResponse> create(@Valid @RequestBody CreatePatientRequest req){
-        Patient p = patientService.create(req);
+    public ResponseEntity<PatientDtos.PatientResponse> create(@Valid @RequestBody CreatePatientRequest req,
+                                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
+        Patient p = patientService.create(req, idempotencyKey);
         return ResponseEntity.ok(Mappers.toResponse(p));
     }
 
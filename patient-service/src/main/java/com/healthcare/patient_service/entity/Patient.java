@@ -18,4 +18,6 @@ public class Patient {
     private String gender;
     @Column(length = 2000) private String address;
     @Column(length = 4000) private String medicalHistory;
+    // auth-service user id sent as Idempotency-Key, so a retried registration finds this row
+    @Column(unique = true, updatable = false, length = 64) private String registrationKey;
 }
@@ -10,4 +10,5 @@ import java.util.Optional;
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     Optional<Patient> findByPhone(String phone);
     Optional<Patient> findByEmail(String email);
+    Optional<Patient> findByRegistrationKey(String registrationKey);
 }
@@ -73,10 +73,11 @@ public class BookingService {
         } catch (JsonProcessingException e){
             throw new RuntimeException(e);
         }
-        kafka.send("appointment-book-request", payload);
+        // keyed by doctor so one doctor's requests are consumed in order
+        kafka.send("appointment-book-request", b.getDoctorId(), payload);
 
         // Also publish event for notifications (messaging service)
-        kafka.send("user-notify-request", "BOOKING_CREATED:"+b.getBookingId());
+        kafka.send("user-notify-request", b.getBookingId(), "BOOKING_CREATED:"+b.getBookingId());
 
         return b;
     }
@@ -91,8 +92,10 @@ public class BookingService {
         if ("CANCELLED".equalsIgnoreCase(b.getStatus())) throw new BadRequestException("Already cancelled");
         b.setStatus("CANCELLED");
         repo.save(b);
-        kafka.send("appointment-cancel-request", bookingId);
-        kafka.send("user-notify-request", "BOOKING_CANCELLED:"+bookingId);
+        // keyed by doctor like the book request, but it is a different topic: Kafka does not order the two,
+        // so a consumer must handle a cancel that arrives before the booking it refers to
+        kafka.send("appointment-cancel-request", b.getDoctorId(), bookingId);
+        kafka.send("user-notify-request", bookingId, "BOOKING_CANCELLED:"+bookingId);
         return b;
     }
 }
\ No newline at end of file
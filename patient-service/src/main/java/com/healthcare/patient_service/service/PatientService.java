@@ -5,24 +5,37 @@ import com.healthcare.patient_service.entity.Patient;
 import com.healthcare.patient_service.exception.NotFoundException;
 import com.healthcare.patient_service.repository.PatientRepository;
 import com.healthcare.patient_service.util.Mappers;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class PatientService {
 
     private final PatientRepository repo;
+    private final KafkaTemplate<String, String> kafka;
 
-    public PatientService(PatientRepository repo){ this.repo = repo; }
+    public PatientService(PatientRepository repo, KafkaTemplate<String, String> kafka){
+        this.repo = repo; this.kafka = kafka;
+    }
 
     @Transactional
-    public Patient create(CreatePatientRequest req){
+    public Patient create(CreatePatientRequest req, String registrationKey){
+        // a retried call whose first attempt committed gets the same patient back, not a duplicate error
+        if (registrationKey != null) {
+            Optional<Patient> existing = repo.findByRegistrationKey(registrationKey);
+            if (existing.isPresent()) return existing.get();
+        }
         // check duplicates by phone/email
         repo.findByPhone(req.phone()).ifPresent(p -> { throw new IllegalArgumentException("Phone already registered"); });
         repo.findByEmail(req.email()).ifPresent(p -> { throw new IllegalArgumentException("Email already registered"); });
         Patient p = Mappers.toEntity(req);
+        p.setRegistrationKey(registrationKey);
         return repo.save(p);
     }
 
@@ -41,7 +54,10 @@ public class PatientService {
         if (req.gender()!=null) p.setGender(req.gender());
         if (req.address()!=null) p.setAddress(req.address());
         if (req.medicalHistory()!=null) p.setMedicalHistory(req.medicalHistory());
-        return repo.save(p);
+        repo.save(p);
+        // auth-service caches the patient profile behind /auth/me
+        profileUpdatedAfterCommit(p.getId());
+        return p;
     }
 
     public List<Patient> listAll(){ return repo.findAll(); }
@@ -50,6 +66,18 @@ public class PatientService {
     public void delete(Long id){
         if (!repo.existsById(id)) throw new NotFoundException("Patient not found");
         repo.deleteById(id);
+        profileUpdatedAfterCommit(id);
+    }
+
+    // sent once the change is committed, so a consumer reloading the patient never reads the old row
+    private void profileUpdatedAfterCommit(Long id){
+        String key = String.valueOf(id);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                kafka.send("patient-profile-updated", key, key);
+            }
+        });
     }
 
 }